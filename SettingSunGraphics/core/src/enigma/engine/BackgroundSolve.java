@@ -0,0 +1,104 @@
+package enigma.engine;
+
+/**
+ * A solve that runs on a worker thread (see SolveExecutor) while the render thread keeps drawing.
+ *
+ * The worker runs a SteppedSolver in short steps. Between steps it publishes its progress (the
+ * number of expanded states and the depth of the search) in volatile fields, so the render thread
+ * can show it, and checks its cancellation token, so a solve that is no longer wanted (e.g. a piece
+ * was moved) stops shortly after it is cancelled. The solve has its own solver and only reads its
+ * start state, so it shares no mutable data with the game.
+ */
+public class BackgroundSolve implements Runnable {
+	// the worker publishes progress and checks the token after every step of this length
+	private static final long STEP_NANOS = 5000000L;
+
+	private final long startDataVector;
+	private final long stepNanos;
+	private final CancellationToken token = new CancellationToken();
+
+	private volatile int expandedCount = 0;
+	private volatile int depth = 0;
+	private volatile SolveResult result = null;
+
+	/**
+	 * Constructor for a solve from a state.
+	 *
+	 * @param start
+	 *            the state to solve from.
+	 */
+	public BackgroundSolve(State start) {
+		this(start, STEP_NANOS);
+	}
+
+	/**
+	 * Constructor for a solve from a state with a given step length.
+	 *
+	 * @param start
+	 *            the state to solve from.
+	 * @param stepNanos
+	 *            the time budget of every step (see SteppedSolver.step).
+	 */
+	BackgroundSolve(State start, long stepNanos) {
+		this.startDataVector = start.dataVector;
+		this.stepNanos = stepNanos;
+	}
+
+	@Override
+	public void run() {
+		SteppedSolver solver = new SteppedSolver();
+		solver.start(new State(startDataVector, null));
+		while (!token.isCancelled() && !solver.step(stepNanos)) {
+			expandedCount = solver.getExpandedCount();
+			depth = solver.getDepth();
+			stepFinished();
+		}
+		solver.cancel();
+		expandedCount = solver.getExpandedCount();
+		depth = solver.getDepth();
+		result = solver.getResult();
+	}
+
+	/**
+	 * Called on the worker after every step that did not finish the solve, once the step's progress
+	 * has been published. Does nothing here; a check can override it to hold the worker between
+	 * steps, so it sees the progress of every step without depending on timing.
+	 */
+	void stepFinished() {
+	}
+
+	/**
+	 * Asks the solve to stop. Its result's status will be CANCELLED (unless it already finished).
+	 */
+	public void cancel() {
+		token.cancel();
+	}
+
+	/**
+	 * @return whether cancel has been called.
+	 */
+	public boolean isCancelled() {
+		return token.isCancelled();
+	}
+
+	/**
+	 * @return the number of states expanded so far.
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return the depth the search has reached so far.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return the result of the solve, or null if it has not finished.
+	 */
+	public SolveResult getResult() {
+		return result;
+	}
+}
@@ -0,0 +1,178 @@
+package enigma.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Solves many start configurations with a single search.
+ *
+ * Calling SettingSun.solvePuzzle for every start repeats a search over largely the same states.
+ * Instead, this class runs one breadth first search backwards from every winning state at once
+ * (the same retrograde search used to build the DistanceTable), remembering for every state found
+ * the state it was found from, which is one move closer to winning. The search stops as soon as
+ * every requested start has been found, so a batch of starts close to the goal only explores the
+ * states near the goal. Starts that can not reach the goal are answered from the ComponentIndex
+ * before searching; otherwise a single one of them would keep the search going until it had
+ * explored every state that can reach the goal.
+ *
+ * Every move can be undone, so the states found from a state are also the states it can move to.
+ * Following the found-from links from a start gives a shortest solution, with the same number of
+ * moves as the one found by solvePuzzle (it may pass through different states).
+ *
+ * Objects of this class reuse their move generator between searches, so each thread should use
+ * its own object (see the concurrency notes in SettingSun).
+ */
+public class BatchSolver {
+	private static final int UNVISITED = -2;
+	private static final int GOAL = -1;
+
+	private final MoveGenerator generator = new MoveGenerator();
+	private final long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+	private int expandedCount;
+
+	/**
+	 * Solves a batch of start states.
+	 *
+	 * @param starts
+	 *            the start states.
+	 * @return the solution of every start, in the order of the collection.
+	 */
+	public BatchSolution solve(Collection<State> starts) {
+		long[] dataVectors = new long[starts.size()];
+		int i = 0;
+		for (State start : starts) {
+			dataVectors[i++] = start.dataVector;
+		}
+		return solve(dataVectors);
+	}
+
+	/**
+	 * Solves a batch of start states.
+	 *
+	 * @param starts
+	 *            the canonical data vectors of the start states.
+	 * @return the solution of every start, in the order of the array.
+	 */
+	public BatchSolution solve(long[] starts) {
+		int size = StateIndex.size();
+		expandedCount = 0;
+
+		// [rank] -> the rank of a state one move closer to winning
+		int[] nextRanks = new int[size];
+		Arrays.fill(nextRanks, UNVISITED);
+		short[] distances = new short[size];
+
+		// mark the requested starts; illegal and unsolvable configurations can never be found, so
+		// they are left unvisited (see BatchSolution.getLength)
+		boolean[] requested = new boolean[size];
+		int remaining = 0;
+		for (long start : starts) {
+			int rank = StateIndex.rankOf(start);
+			if (rank >= 0 && !requested[rank] && ComponentIndex.isSolvable(start)) {
+				requested[rank] = true;
+				remaining++;
+			}
+		}
+
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+		for (int rank = 0; rank < size; ++rank) {
+			if (SettingSun.isWinState(StateIndex.dataVectorOf(rank))) {
+				nextRanks[rank] = GOAL;
+				queue[tail++] = rank;
+				if (requested[rank]) {
+					remaining--;
+				}
+			}
+		}
+
+		while (remaining > 0 && head < tail) {
+			int rank = queue[head++];
+			expandedCount++;
+			short nextDistance = (short) (distances[rank] + 1);
+			int count = generator.generate(StateIndex.dataVectorOf(rank), successors, null);
+			for (int i = 0; i < count; ++i) {
+				int successorRank = StateIndex.rankOf(successors[i]);
+				if (nextRanks[successorRank] == UNVISITED) {
+					nextRanks[successorRank] = rank;
+					distances[successorRank] = nextDistance;
+					queue[tail++] = successorRank;
+					if (requested[successorRank]) {
+						remaining--;
+					}
+				}
+			}
+		}
+
+		return new BatchSolution(starts.clone(), nextRanks, distances);
+	}
+
+	/**
+	 * @return the number of states expanded during the last batch.
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * The solutions of a batch of start states, as returned by BatchSolver.solve. Solution lengths
+	 * are available for every start; the linked list of states of a solution is only built when it
+	 * is requested.
+	 */
+	public static class BatchSolution {
+		private final long[] starts;
+		private final int[] nextRanks;
+		private final short[] distances;
+
+		BatchSolution(long[] starts, int[] nextRanks, short[] distances) {
+			this.starts = starts;
+			this.nextRanks = nextRanks;
+			this.distances = distances;
+		}
+
+		/**
+		 * @return the number of start states in the batch.
+		 */
+		public int size() {
+			return starts.length;
+		}
+
+		/**
+		 * @param i
+		 *            the position of a start in the batch.
+		 * @return the number of moves needed to win from the start, or DistanceTable.UNSOLVABLE if
+		 *         the start can not reach the goal (or is not a legal configuration).
+		 */
+		public int getLength(int i) {
+			int rank = StateIndex.rankOf(starts[i]);
+			if (rank < 0 || nextRanks[rank] == UNVISITED) {
+				return DistanceTable.UNSOLVABLE;
+			}
+			return distances[rank];
+		}
+
+		/**
+		 * Builds the solution of a start.
+		 *
+		 * @param i
+		 *            the position of a start in the batch.
+		 * @return a linked list of states from the start to a winning state (in the same form as
+		 *         SettingSun.solvePuzzle), or null if the start can not reach the goal.
+		 */
+		public State getSolution(int i) {
+			int rank = StateIndex.rankOf(starts[i]);
+			if (rank < 0 || nextRanks[rank] == UNVISITED) {
+				return null;
+			}
+
+			State first = new State(starts[i], null);
+			State last = first;
+			for (rank = nextRanks[rank]; rank != GOAL; rank = nextRanks[rank]) {
+				last.linkedNode = new State(StateIndex.dataVectorOf(rank), null);
+				last = last.linkedNode;
+			}
+			return first;
+		}
+	}
+}
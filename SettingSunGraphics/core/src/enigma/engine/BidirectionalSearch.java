@@ -0,0 +1,220 @@
+package enigma.engine;
+
+import java.util.Arrays;
+
+/**
+ * A breadth first search that searches forwards from a start state and backwards from one or more
+ * target states at the same time, until the two searches meet in the middle.
+ *
+ * Each search explores roughly the states within half of the solution's length, which is far fewer
+ * states than a single search would explore for a long solution. It also allows finding the
+ * shortest way between any two configurations (not just to a winning state), e.g. to guide a
+ * player from one configuration to another.
+ *
+ * The searches take turns expanding a whole layer, always choosing the side with the smaller
+ * frontier. When a layer reaches a state the other side has already found, the shortest connection
+ * found while expanding that layer is used, and the two halves are joined into a single linked list
+ * of states. Every move can be undone, so the backward search uses the same move generator as the
+ * forward search.
+ *
+ * States are identified by their rank (see StateIndex). Objects of this class reuse their arrays
+ * between searches, so each thread should use its own object.
+ */
+public class BidirectionalSearch {
+	private static final int UNVISITED = -2;
+	private static final int NO_PARENT = -1;
+
+	// [rank] -> the rank the state was found from, for each side of the search
+	private final int[] forwardParents = new int[StateIndex.size()];
+	private final int[] backwardParents = new int[StateIndex.size()];
+
+	// [rank] -> the number of moves from the start (forward) or from a target (backward)
+	private final int[] forwardDepths = new int[StateIndex.size()];
+	private final int[] backwardDepths = new int[StateIndex.size()];
+
+	private final MoveGenerator generator = new MoveGenerator();
+	private final long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+	private int expandedCount;
+
+	/**
+	 * Finds the shortest way to get from one configuration to another.
+	 *
+	 * @param start
+	 *            the start state.
+	 * @param target
+	 *            the state to reach.
+	 * @return a linked list of states from the start state to the target state, or null if the
+	 *         target can not be reached.
+	 */
+	public State solve(State start, State target) {
+		return solve(start.dataVector, new long[] { target.dataVector });
+	}
+
+	/**
+	 * Finds the shortest way to get from a configuration to any of a set of target configurations.
+	 *
+	 * @param start
+	 *            the canonical data vector of the start state.
+	 * @param targets
+	 *            the canonical data vectors of the target states.
+	 * @return a linked list of states from the start state to the closest target, or null if no
+	 *         target can be reached (or a state is not a legal configuration).
+	 */
+	public State solve(long start, long[] targets) {
+		expandedCount = 0;
+		Arrays.fill(forwardParents, UNVISITED);
+		Arrays.fill(backwardParents, UNVISITED);
+
+		int startRank = StateIndex.rankOf(start);
+		if (startRank < 0) {
+			return null;
+		}
+		int[] forwardFrontier = { startRank };
+		int forwardSize = 1;
+		forwardParents[startRank] = NO_PARENT;
+		forwardDepths[startRank] = 0;
+
+		int[] backwardFrontier = new int[targets.length];
+		int backwardSize = 0;
+		for (long target : targets) {
+			int rank = StateIndex.rankOf(target);
+			if (rank >= 0 && backwardParents[rank] == UNVISITED) {
+				backwardParents[rank] = NO_PARENT;
+				backwardDepths[rank] = 0;
+				backwardFrontier[backwardSize++] = rank;
+			}
+		}
+
+		// the start state may already be a target
+		if (backwardParents[startRank] != UNVISITED) {
+			return joinHalves(startRank);
+		}
+
+		while (forwardSize > 0 && backwardSize > 0) {
+			Layer layer;
+			if (forwardSize <= backwardSize) {
+				layer = expandLayer(forwardFrontier, forwardSize, forwardParents, forwardDepths, backwardParents, backwardDepths);
+				forwardFrontier = layer.frontier;
+				forwardSize = layer.size;
+			} else {
+				layer = expandLayer(backwardFrontier, backwardSize, backwardParents, backwardDepths, forwardParents, forwardDepths);
+				backwardFrontier = layer.frontier;
+				backwardSize = layer.size;
+			}
+
+			if (layer.meetingRank >= 0) {
+				return joinHalves(layer.meetingRank);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the shortest way to get from a configuration to a winning state.
+	 *
+	 * @param start
+	 *            the canonical data vector of the start state.
+	 * @return a linked list of states from the start state to a winning state, or null if no
+	 *         winning state can be reached.
+	 */
+	public State solveToWin(long start) {
+		long[] winStates = new long[StateIndex.size()];
+		int count = 0;
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			long dataVector = StateIndex.dataVectorOf(rank);
+			if (SettingSun.isWinState(dataVector)) {
+				winStates[count++] = dataVector;
+			}
+		}
+		return solve(start, Arrays.copyOf(winStates, count));
+	}
+
+	/**
+	 * @return the number of states expanded (by both sides) during the last search.
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * The result of expanding one layer of one side of the search.
+	 */
+	private static class Layer {
+		int[] frontier;
+		int size;
+		int meetingRank = -1;
+	}
+
+	/**
+	 * Expands every state of a frontier. Any state found that has already been found by the other
+	 * side is a meeting point; the meeting point with the shortest total length is kept.
+	 *
+	 * @return the next frontier and the best meeting point (if any)
+	 */
+	private Layer expandLayer(int[] frontier, int size, int[] parents, int[] depths, int[] otherParents, int[] otherDepths) {
+		Layer layer = new Layer();
+		layer.frontier = new int[Math.max(16, size * 4)];
+		int bestLength = Integer.MAX_VALUE;
+
+		for (int i = 0; i < size; ++i) {
+			int rank = frontier[i];
+			expandedCount++;
+			int count = generator.generate(StateIndex.dataVectorOf(rank), successors, null);
+			for (int j = 0; j < count; ++j) {
+				int successorRank = StateIndex.rankOf(successors[j]);
+				if (parents[successorRank] != UNVISITED) {
+					continue;
+				}
+				parents[successorRank] = rank;
+				depths[successorRank] = depths[rank] + 1;
+
+				if (otherParents[successorRank] != UNVISITED) {
+					int length = depths[successorRank] + otherDepths[successorRank];
+					if (length < bestLength) {
+						bestLength = length;
+						layer.meetingRank = successorRank;
+					}
+				}
+
+				if (layer.size == layer.frontier.length) {
+					layer.frontier = Arrays.copyOf(layer.frontier, layer.size * 2);
+				}
+				layer.frontier[layer.size++] = successorRank;
+			}
+		}
+		return layer;
+	}
+
+	/**
+	 * Joins the forward half (start to meeting point) and the backward half (meeting point to
+	 * target) into a single linked list of states.
+	 *
+	 * @param meetingRank
+	 *            the rank of a state found by both sides.
+	 * @return the first state of the list (the start state).
+	 */
+	private State joinHalves(int meetingRank) {
+		// the backward half already points towards the target, so it is built from the target back
+		State afterMeeting = null;
+		int rank = backwardParents[meetingRank];
+		if (rank != NO_PARENT) {
+			State last = null;
+			for (; rank != NO_PARENT; rank = backwardParents[rank]) {
+				State state = new State(StateIndex.dataVectorOf(rank), null);
+				if (last == null) {
+					afterMeeting = state;
+				} else {
+					last.linkedNode = state;
+				}
+				last = state;
+			}
+		}
+
+		// the forward half points towards the start, so it is built by adding to the front
+		State first = afterMeeting;
+		for (rank = meetingRank; rank != NO_PARENT; rank = forwardParents[rank]) {
+			first = new State(StateIndex.dataVectorOf(rank), first);
+		}
+		return first;
+	}
+}
@@ -0,0 +1,187 @@
+package enigma.engine;
+
+/**
+ * Static helpers that represent the game board as a 20 bit integer (a bitboard) instead of a 2d
+ * boolean array.
+ *
+ * Each cell of the 4x5 board is given an index of (row * 4 + column), and a cell is occupied when
+ * the bit at its index is set. The occupancy of a whole configuration can be derived directly from
+ * a state's data vector without creating any piece or point objects. Checking whether a piece can
+ * be placed somewhere is then a single bitwise 'and' of the piece's shape mask against the board.
+ *
+ * Shapes are identified by the index a piece is stored at in the data vector (see State). The
+ * shape masks for every top-left cell are calculated once when the class is loaded.
+ */
+public class Bitboard {
+	public static final int ROWS = 5;
+	public static final int COLUMNS = 4;
+	public static final int CELL_COUNT = ROWS * COLUMNS;
+	public static final int FULL_BOARD = (1 << CELL_COUNT) - 1;
+
+	// shape identifiers
+	public static final int SHAPE_SMALL = 0;
+	public static final int SHAPE_TALL = 1;
+	public static final int SHAPE_WIDE = 2;
+	public static final int SHAPE_SUN = 3;
+	public static final int SHAPE_COUNT = 4;
+
+	// width and height of each shape (indexed by the shape identifiers)
+	static final int[] SHAPE_WIDTH = { 1, 1, 2, 2 };
+	static final int[] SHAPE_HEIGHT = { 1, 2, 1, 2 };
+
+	// the shape of the piece stored at each data vector index (see the index fields in State)
+	static final int[] SHAPE_AT_INDEX = { SHAPE_SMALL, SHAPE_SMALL, SHAPE_SMALL, SHAPE_SMALL, SHAPE_TALL, SHAPE_TALL, SHAPE_TALL, SHAPE_TALL, SHAPE_WIDE, SHAPE_SUN };
+
+	// the column and row offsets of each direction (indexed by Direction ordinal)
+	static final int[] DIRECTION_DX = { 0, 0, -1, 1, 0 };
+	static final int[] DIRECTION_DY = { -1, 1, 0, 0, 0 };
+
+	// [shape][top-left cell] -> the cells covered by the shape, 0 if the shape does not fit there
+	private static final int[][] SHAPE_MASKS = new int[SHAPE_COUNT][CELL_COUNT];
+
+	static {
+		for (int shape = 0; shape < SHAPE_COUNT; ++shape) {
+			for (int y = 0; y < ROWS; ++y) {
+				for (int x = 0; x < COLUMNS; ++x) {
+					SHAPE_MASKS[shape][cellOf(x, y)] = buildShapeMask(shape, x, y);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts a column and row into the cell index used by the bitboard.
+	 *
+	 * @param x
+	 *            column
+	 * @param y
+	 *            row
+	 * @return the index of the cell
+	 */
+	public static int cellOf(int x, int y) {
+		return y * COLUMNS + x;
+	}
+
+	/**
+	 * @param cell
+	 *            the index of a cell
+	 * @return the column (x) of the cell
+	 */
+	public static int columnOf(int cell) {
+		return cell % COLUMNS;
+	}
+
+	/**
+	 * @param cell
+	 *            the index of a cell
+	 * @return the row (y) of the cell
+	 */
+	public static int rowOf(int cell) {
+		return cell / COLUMNS;
+	}
+
+	/**
+	 * Gets the cells covered by a shape placed with its top-left coordinate at the given cell.
+	 *
+	 * @param shape
+	 *            the shape identifier
+	 * @param cell
+	 *            the top-left cell of the shape
+	 * @return the covered cells, or 0 if the shape does not fit on the board at that cell.
+	 */
+	public static int shapeMask(int shape, int cell) {
+		return SHAPE_MASKS[shape][cell];
+	}
+
+	/**
+	 * Extracts the 6 bit field (3 bits of x followed by 3 bits of y) of a piece from a data vector.
+	 *
+	 * @param dataVector
+	 *            the data vector of a state.
+	 * @param index
+	 *            the index of the piece (see State).
+	 * @return the packed x and y of the piece.
+	 */
+	public static int fieldAt(long dataVector, int index) {
+		return (int) (dataVector >>> (6 * index)) & 63;
+	}
+
+	/**
+	 * Converts a packed 6 bit field into a cell index.
+	 *
+	 * @param field
+	 *            the field extracted from a data vector
+	 * @return the cell index of the field's point.
+	 */
+	public static int cellOfField(int field) {
+		return cellOf(field >>> 3, field & 7);
+	}
+
+	/**
+	 * Converts a cell index into a packed 6 bit field (the format used in data vectors).
+	 *
+	 * @param cell
+	 *            the index of a cell
+	 * @return the packed x and y of the cell.
+	 */
+	public static int fieldOfCell(int cell) {
+		return (columnOf(cell) << 3) | rowOf(cell);
+	}
+
+	/**
+	 * Calculates which cells are occupied by the configuration stored in a data vector.
+	 *
+	 * @param dataVector
+	 *            the data vector of a state.
+	 * @return a bitboard with a bit set for every occupied cell.
+	 */
+	public static int occupancy(long dataVector) {
+		int occupied = 0;
+		for (int index = 0; index < 10; ++index) {
+			occupied |= SHAPE_MASKS[SHAPE_AT_INDEX[index]][cellOfField(fieldAt(dataVector, index))];
+		}
+		return occupied;
+	}
+
+	/**
+	 * Checks whether a data vector is a legal canonical configuration: every piece is on the board,
+	 * no two pieces overlap, identical pieces are sorted (see State.sortFields) and the unused high
+	 * bits are clear. These are exactly the configurations numbered by StateIndex, but checking one
+	 * does not need the index to be built.
+	 *
+	 * @param dataVector
+	 *            the data vector to check.
+	 * @return whether the data vector is a legal configuration.
+	 */
+	public static boolean isLegal(long dataVector) {
+		if ((dataVector >>> 60) != 0) {
+			return false;
+		}
+		int occupied = 0;
+		for (int index = 0; index < 10; ++index) {
+			int field = fieldAt(dataVector, index);
+			if ((field >>> 3) >= COLUMNS || (field & 7) >= ROWS) {
+				return false;
+			}
+			int mask = SHAPE_MASKS[SHAPE_AT_INDEX[index]][cellOfField(field)];
+			if (mask == 0 || (mask & occupied) != 0) {
+				return false;
+			}
+			occupied |= mask;
+		}
+		return State.sortFields(State.sortFields(dataVector, State.tall4Index), State.small4Index) == dataVector;
+	}
+
+	private static int buildShapeMask(int shape, int x, int y) {
+		if (x + SHAPE_WIDTH[shape] > COLUMNS || y + SHAPE_HEIGHT[shape] > ROWS) {
+			return 0;
+		}
+		int mask = 0;
+		for (int row = y; row < y + SHAPE_HEIGHT[shape]; ++row) {
+			for (int column = x; column < x + SHAPE_WIDTH[shape]; ++column) {
+				mask |= 1 << cellOf(column, row);
+			}
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,25 @@
+package enigma.engine;
+
+/**
+ * A flag used to ask a running solve to stop (see SettingSun.solvePuzzle(long, int,
+ * CancellationToken)). The token is usually cancelled from another thread than the one solving,
+ * so the flag is volatile. The solver only checks the flag every few thousand expanded states, so a
+ * solve stops shortly after (not immediately after) the token is cancelled.
+ */
+public class CancellationToken {
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Asks every solve using this token to stop.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return whether cancel has been called.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
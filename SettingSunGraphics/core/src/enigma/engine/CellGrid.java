@@ -0,0 +1,223 @@
+package enigma.engine;
+
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * A spatial index that maps the cells of a board to the items (e.g. sprites) covering them.
+ *
+ * Every item is a rectangle of whole cells. The GUI used to find the sprite under a touch, and to
+ * check a sprite for collisions, by comparing it against the rectangle of every other sprite.
+ * Looking up the cells in this grid instead takes one array access per cell, no matter how many
+ * pieces are on the board.
+ *
+ * The grid does not follow items by itself; it must be told every time an item is placed (e.g. when
+ * a piece snaps to a cell). Items may overlap (in free mode a piece can be dropped on another). A
+ * shared cell reports the item placed there last, and once that item leaves, one of the items still
+ * covering it. Every cell keeps a count of the items covering it, so only cells that are still
+ * shared need the items to be searched.
+ *
+ * @param <T>
+ *            the type of the items on the board.
+ */
+public class CellGrid<T> {
+	private static final int NOT_PLACED = -1;
+
+	private final int columns;
+	private final int rows;
+	private final Object[] cells;
+	private final byte[] coverCounts;
+
+	// [id] -> an item, its size and its top-left cell (or NOT_PLACED)
+	private final ObjectIntMap<T> ids;
+	private final Object[] items;
+	private final int[] widths;
+	private final int[] heights;
+	private final int[] topLeftCells;
+	private int itemCount = 0;
+
+	/**
+	 * Constructor for an empty grid.
+	 *
+	 * @param columns
+	 *            the width of the board in cells.
+	 * @param rows
+	 *            the height of the board in cells.
+	 * @param capacity
+	 *            the most items that will be added.
+	 */
+	public CellGrid(int columns, int rows, int capacity) {
+		this.columns = columns;
+		this.rows = rows;
+		this.cells = new Object[columns * rows];
+		this.coverCounts = new byte[columns * rows];
+		this.ids = new ObjectIntMap<T>(capacity);
+		this.items = new Object[capacity];
+		this.widths = new int[capacity];
+		this.heights = new int[capacity];
+		this.topLeftCells = new int[capacity];
+	}
+
+	/**
+	 * Adds an item to the grid. It does not cover any cells until it is placed.
+	 *
+	 * @param item
+	 *            the item to add.
+	 * @param width
+	 *            the width of the item in cells.
+	 * @param height
+	 *            the height of the item in cells.
+	 */
+	public void add(T item, int width, int height) {
+		int id = itemCount++;
+		ids.put(item, id);
+		items[id] = item;
+		widths[id] = width;
+		heights[id] = height;
+		topLeftCells[id] = NOT_PLACED;
+	}
+
+	/**
+	 * Moves an item so that its top-left corner is at a cell. An item that would not be completely
+	 * on the board is removed from the board instead.
+	 *
+	 * @param item
+	 *            an item that was added to the grid.
+	 * @param x
+	 *            the column of the item's top-left corner.
+	 * @param y
+	 *            the row of the item's top-left corner.
+	 */
+	public void place(T item, int x, int y) {
+		int id = ids.get(item, NOT_PLACED);
+		if (id == NOT_PLACED) {
+			throw new IllegalArgumentException("item was not added to the grid");
+		}
+
+		fill(id, false);
+		topLeftCells[id] = isOnBoard(id, x, y) ? y * columns + x : NOT_PLACED;
+		fill(id, true);
+	}
+
+	/**
+	 * Removes every item from the board. The items stay added to the grid.
+	 */
+	public void clear() {
+		for (int i = 0; i < cells.length; ++i) {
+			cells[i] = null;
+			coverCounts[i] = 0;
+		}
+		for (int id = 0; id < itemCount; ++id) {
+			topLeftCells[id] = NOT_PLACED;
+		}
+	}
+
+	/**
+	 * @param x
+	 *            a column.
+	 * @param y
+	 *            a row.
+	 * @return the item covering the cell, or null if the cell is empty or not on the board.
+	 */
+	@SuppressWarnings("unchecked")
+	public T itemAt(int x, int y) {
+		if (x < 0 || x >= columns || y < 0 || y >= rows) {
+			return null;
+		}
+		return (T) cells[y * columns + x];
+	}
+
+	/**
+	 * Checks if an item could be placed at a cell without leaving the board or covering another
+	 * item. The cells the item covers now count as free.
+	 *
+	 * @param item
+	 *            an item that was added to the grid.
+	 * @param x
+	 *            the column of the item's top-left corner.
+	 * @param y
+	 *            the row of the item's top-left corner.
+	 * @return whether the item fits.
+	 */
+	public boolean fits(T item, int x, int y) {
+		int id = ids.get(item, NOT_PLACED);
+		if (id == NOT_PLACED || !isOnBoard(id, x, y)) {
+			return false;
+		}
+
+		for (int row = y; row < y + heights[id]; ++row) {
+			for (int column = x; column < x + widths[id]; ++column) {
+				int cell = row * columns + column;
+				int others = coverCounts[cell] - (covers(id, cell) ? 1 : 0);
+				if (others > 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param item
+	 *            an item that was added to the grid.
+	 * @return whether the item covers any cells (it was placed completely on the board).
+	 */
+	public boolean isPlaced(T item) {
+		int id = ids.get(item, NOT_PLACED);
+		return id != NOT_PLACED && topLeftCells[id] != NOT_PLACED;
+	}
+
+	private boolean isOnBoard(int id, int x, int y) {
+		return x >= 0 && y >= 0 && x + widths[id] <= columns && y + heights[id] <= rows;
+	}
+
+	/**
+	 * @return whether an item is placed so that it covers a cell.
+	 */
+	private boolean covers(int id, int cell) {
+		int topLeft = topLeftCells[id];
+		if (topLeft == NOT_PLACED) {
+			return false;
+		}
+		int column = cell % columns - topLeft % columns;
+		int row = cell / columns - topLeft / columns;
+		return column >= 0 && column < widths[id] && row >= 0 && row < heights[id];
+	}
+
+	/**
+	 * Sets or clears the cells covered by an item (if it is placed). When clearing, a cell the item
+	 * was shown in that is still covered by other items is given to one of them.
+	 */
+	private void fill(int id, boolean set) {
+		int topLeft = topLeftCells[id];
+		if (topLeft == NOT_PLACED) {
+			return;
+		}
+
+		for (int row = 0; row < heights[id]; ++row) {
+			for (int column = 0; column < widths[id]; ++column) {
+				int cell = topLeft + row * columns + column;
+				if (set) {
+					cells[cell] = items[id];
+					coverCounts[cell]++;
+				} else {
+					coverCounts[cell]--;
+					if (cells[cell] == items[id]) {
+						cells[cell] = coverCounts[cell] == 0 ? null : otherItemCovering(id, cell);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches the items for one other than an item that covers a cell.
+	 */
+	private Object otherItemCovering(int id, int cell) {
+		for (int other = 0; other < itemCount; ++other) {
+			if (other != id && covers(other, cell)) {
+				return items[other];
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,147 @@
+package enigma.engine;
+
+import java.util.Arrays;
+
+/**
+ * Splits every legal configuration of the board into connected components: two configurations
+ * are in the same component if one can be reached from the other. Every move can be undone, so
+ * reachability goes both ways and the components are found with one breadth first search per
+ * component.
+ *
+ * A start state can only be solved if its component contains a winning state. Without this index,
+ * an unsolvable start is only discovered after a search has visited its whole component (the most
+ * expensive search possible); with it, the start is rejected with a single look up.
+ *
+ * The index is built the first time it is used. Building it searches every legal configuration, which
+ * takes several times as long as solving the default start, so SettingSun only looks starts up here
+ * when it is asked to (see SettingSun.setRejectUnsolvableStarts).
+ */
+public class ComponentIndex {
+
+	/**
+	 * Holder class so the index is only built the first time it is used.
+	 */
+	private static class Holder {
+		static final Components INDEX = buildComponents();
+	}
+
+	/**
+	 * The arrays of the index.
+	 */
+	static class Components {
+		// [rank] -> the component of the state
+		final int[] componentOfRank;
+
+		// [component] -> the number of states in the component
+		final int[] sizes;
+
+		// [component] -> whether the component contains a winning state
+		final boolean[] solvable;
+
+		Components(int[] componentOfRank, int[] sizes, boolean[] solvable) {
+			this.componentOfRank = componentOfRank;
+			this.sizes = sizes;
+			this.solvable = solvable;
+		}
+	}
+
+	/**
+	 * Looks up the component of a state.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of the state.
+	 * @return the component of the state, or -1 if the data vector is not a legal configuration.
+	 */
+	public static int componentOf(long dataVector) {
+		int rank = StateIndex.rankOf(dataVector);
+		return rank < 0 ? -1 : Holder.INDEX.componentOfRank[rank];
+	}
+
+	/**
+	 * @return the number of components.
+	 */
+	public static int componentCount() {
+		return Holder.INDEX.sizes.length;
+	}
+
+	/**
+	 * @param component
+	 *            a component (see componentOf)
+	 * @return the number of states in the component.
+	 */
+	public static int componentSize(int component) {
+		return Holder.INDEX.sizes[component];
+	}
+
+	/**
+	 * @param component
+	 *            a component (see componentOf)
+	 * @return whether a winning state can be reached from the states of the component.
+	 */
+	public static boolean isComponentSolvable(int component) {
+		return Holder.INDEX.solvable[component];
+	}
+
+	/**
+	 * Checks if a winning state can be reached from a state without searching.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of the state.
+	 * @return whether the state is a legal configuration that can reach a winning state.
+	 */
+	public static boolean isSolvable(long dataVector) {
+		int component = componentOf(dataVector);
+		return component >= 0 && Holder.INDEX.solvable[component];
+	}
+
+	/**
+	 * Labels every state with its component, one breadth first search at a time. Only called once
+	 * by the holder class; it is package-private so a build can be timed.
+	 *
+	 * @return the arrays of the index.
+	 */
+	static Components buildComponents() {
+		int size = StateIndex.size();
+		int[] components = new int[size];
+		Arrays.fill(components, -1);
+		int[] sizes = new int[16];
+		boolean[] solvable = new boolean[16];
+		int count = 0;
+
+		int[] queue = new int[size];
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		for (int root = 0; root < size; ++root) {
+			if (components[root] >= 0) {
+				continue;
+			}
+			if (count == sizes.length) {
+				sizes = Arrays.copyOf(sizes, count * 2);
+				solvable = Arrays.copyOf(solvable, count * 2);
+			}
+
+			int head = 0;
+			int tail = 0;
+			components[root] = count;
+			queue[tail++] = root;
+			while (head < tail) {
+				long dataVector = StateIndex.dataVectorOf(queue[head++]);
+				if (SettingSun.isWinState(dataVector)) {
+					solvable[count] = true;
+				}
+				int successorCount = generator.generate(dataVector, successors, null);
+				for (int i = 0; i < successorCount; ++i) {
+					int successorRank = StateIndex.rankOf(successors[i]);
+					if (components[successorRank] < 0) {
+						components[successorRank] = count;
+						queue[tail++] = successorRank;
+					}
+				}
+			}
+			sizes[count] = tail;
+			count++;
+		}
+
+		return new Components(components, Arrays.copyOf(sizes, count), Arrays.copyOf(solvable, count));
+	}
+}
@@ -11,5 +11,5 @@ public enum Direction {
 	UP, DOWN, LEFT, RIGHT, STAY;
 
 	// save a quick lookup reference in static storage; this allows recycling of objects in memory. 
-	static Direction[] directionValues = Direction.values();
+	static final Direction[] directionValues = Direction.values();
 }
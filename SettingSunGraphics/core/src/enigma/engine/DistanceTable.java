@@ -0,0 +1,164 @@
+package enigma.engine;
+
+/**
+ * A table holding the number of moves needed to win from every legal configuration of the board
+ * (the distance-to-goal).
+ *
+ * The table is built with a retrograde analysis: a breadth first search that starts from every
+ * winning state (the sun at the win point) at once and works backwards. Every move in this puzzle
+ * can be undone by moving the same piece back, so the states that lead to a state are the same as
+ * the states that can be reached from it. The search covers every state that can reach the goal,
+ * and states that cannot reach the goal keep a distance of -1.
+ *
+ * Once the table has been built, solving from any configuration no longer needs a search: starting
+ * from a state with distance d, any neighbor with distance d-1 is one step closer to the goal.
+ *
+ * Distances are stored in an array indexed by rank (see StateIndex). The table is built the first
+ * time it is used.
+ */
+public class DistanceTable {
+	public static final int UNSOLVABLE = -1;
+
+	/**
+	 * Holder class so the table is only built the first time it is used.
+	 */
+	private static class Holder {
+		static final short[] DISTANCES = buildDistances();
+	}
+
+	/**
+	 * Looks up the number of moves needed to win from a state.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of the state.
+	 * @return the number of moves to win, or UNSOLVABLE if the state can not reach the goal (or is
+	 *         not a legal configuration).
+	 */
+	public static int distanceOf(long dataVector) {
+		int rank = StateIndex.rankOf(dataVector);
+		return rank < 0 ? UNSOLVABLE : Holder.DISTANCES[rank];
+	}
+
+	/**
+	 * Looks up the number of moves needed to win from a state.
+	 *
+	 * @param rank
+	 *            the rank of the state (see StateIndex).
+	 * @return the number of moves to win, or UNSOLVABLE if the state can not reach the goal.
+	 */
+	public static int distanceOfRank(int rank) {
+		return Holder.DISTANCES[rank];
+	}
+
+	/**
+	 * Builds a solution by walking from the start state to a neighbor that is one step closer to
+	 * the goal, until a winning state is reached.
+	 *
+	 * @param start
+	 *            the canonical data vector of the start state.
+	 * @return a linked list of states from the start state to a winning state (in the same form as
+	 *         SettingSun.solvePuzzle), or null if the goal can not be reached.
+	 */
+	public static State solve(long start) {
+		int distance = distanceOf(start);
+		if (distance == UNSOLVABLE) {
+			return null;
+		}
+
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		State first = new State(start, null);
+		State last = first;
+		long current = start;
+		while (distance > 0) {
+			current = closerSuccessor(generator, successors, current, distance);
+			distance--;
+			last.linkedNode = new State(current, null);
+			last = last.linkedNode;
+		}
+		return first;
+	}
+
+	/**
+	 * Finds a successor of a state that is one step closer to the goal. The first such successor in
+	 * the generator's order is chosen so that solutions are always the same.
+	 *
+	 * @param generator
+	 *            generator used to find the successors.
+	 * @param successors
+	 *            scratch array for the successors.
+	 * @param dataVector
+	 *            the state to move from.
+	 * @param distance
+	 *            the distance of the state.
+	 * @return the data vector of the closer successor.
+	 */
+	static long closerSuccessor(MoveGenerator generator, long[] successors, long dataVector, int distance) {
+		return successors[closerSuccessorIndex(generator, successors, null, dataVector, distance)];
+	}
+
+	/**
+	 * Generates the successors of a state and finds the first one that is one step closer to the
+	 * goal.
+	 *
+	 * @param generator
+	 *            generator used to find the successors.
+	 * @param successors
+	 *            array where the successors are stored.
+	 * @param moves
+	 *            optional array where the moves of the successors are stored, may be null.
+	 * @param dataVector
+	 *            the state to move from.
+	 * @param distance
+	 *            the distance of the state (must be greater than 0).
+	 * @return the position of the closer successor in the successors array.
+	 */
+	static int closerSuccessorIndex(MoveGenerator generator, long[] successors, int[] moves, long dataVector, int distance) {
+		int count = generator.generate(dataVector, successors, moves);
+		for (int i = 0; i < count; ++i) {
+			if (Holder.DISTANCES[StateIndex.rankOf(successors[i])] == distance - 1) {
+				return i;
+			}
+		}
+		throw new RuntimeException("distance table is inconsistent");
+	}
+
+	/**
+	 * Runs the retrograde breadth first search from every winning state.
+	 *
+	 * @return the distance of every state, indexed by rank.
+	 */
+	private static short[] buildDistances() {
+		int size = StateIndex.size();
+		short[] distances = new short[size];
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+
+		// every winning state is a start of the search
+		for (int rank = 0; rank < size; ++rank) {
+			if (SettingSun.isWinState(StateIndex.dataVectorOf(rank))) {
+				distances[rank] = 0;
+				queue[tail++] = rank;
+			} else {
+				distances[rank] = UNSOLVABLE;
+			}
+		}
+
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		while (head < tail) {
+			int rank = queue[head++];
+			short nextDistance = (short) (distances[rank] + 1);
+			int count = generator.generate(StateIndex.dataVectorOf(rank), successors, null);
+			for (int i = 0; i < count; ++i) {
+				int successorRank = StateIndex.rankOf(successors[i]);
+				if (distances[successorRank] == UNSOLVABLE) {
+					distances[successorRank] = nextDistance;
+					queue[tail++] = successorRank;
+				}
+			}
+		}
+		return distances;
+	}
+}
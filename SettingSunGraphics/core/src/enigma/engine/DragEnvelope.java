@@ -0,0 +1,146 @@
+package enigma.engine;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * The positions a dragged piece may take, calculated once when the drag starts.
+ *
+ * The other pieces do not move while a piece is being dragged, so every top-left cell the dragged
+ * piece can reach (sliding through the blank cells, including around corners) is found with a
+ * single flood fill over the MoveTable. For every reachable cell, the run of reachable cells in its
+ * row and in its column is stored. A dragged piece is always somewhere on one of these runs, so
+ * keeping it in a legal position only takes clamping the pointer to the row run or the column run
+ * of the nearest cell, whichever is closer. No collision or transition checks are needed while
+ * dragging, and nothing is allocated.
+ *
+ * Positions are measured in cells (fractions allowed): x is the column and y is the row of the
+ * piece's top-left corner, as in Point.
+ */
+public class DragEnvelope {
+	private final int[] queue = new int[Bitboard.CELL_COUNT];
+
+	// [cell] -> the ends of the runs of reachable cells through the cell
+	private final int[] runLeft = new int[Bitboard.CELL_COUNT];
+	private final int[] runRight = new int[Bitboard.CELL_COUNT];
+	private final int[] runTop = new int[Bitboard.CELL_COUNT];
+	private final int[] runBottom = new int[Bitboard.CELL_COUNT];
+
+	private int reachable = 0;
+
+	/**
+	 * Finds the cells a piece can be dragged to.
+	 *
+	 * @param shape
+	 *            the shape of the dragged piece (see Bitboard).
+	 * @param cell
+	 *            the top-left cell of the dragged piece.
+	 * @param occupied
+	 *            the cells occupied by the other pieces (not by the dragged piece).
+	 */
+	public void compute(int shape, int cell, int occupied) {
+		reachable = 1 << cell;
+		queue[0] = cell;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int current = queue[head++];
+			for (int direction = 0; direction < MoveTable.DIRECTION_COUNT - 1; ++direction) {
+				int entry = MoveTable.entryOf(shape, current, direction);
+				if (MoveTable.isValid(entry) && (MoveTable.entering(entry) & occupied) == 0) {
+					int destination = MoveTable.destination(entry);
+					if ((reachable & (1 << destination)) == 0) {
+						reachable |= 1 << destination;
+						queue[tail++] = destination;
+					}
+				}
+			}
+		}
+
+		// two neighbouring reachable cells are always one legal slide apart
+		for (int i = 0; i < tail; ++i) {
+			int current = queue[i];
+			int x = Bitboard.columnOf(current);
+			int y = Bitboard.rowOf(current);
+
+			int left = x;
+			while (left > 0 && isReachable(left - 1, y)) {
+				left--;
+			}
+			int right = x;
+			while (right < Bitboard.COLUMNS - 1 && isReachable(right + 1, y)) {
+				right++;
+			}
+			int top = y;
+			while (top > 0 && isReachable(x, top - 1)) {
+				top--;
+			}
+			int bottom = y;
+			while (bottom < Bitboard.ROWS - 1 && isReachable(x, bottom + 1)) {
+				bottom++;
+			}
+
+			runLeft[current] = left;
+			runRight[current] = right;
+			runTop[current] = top;
+			runBottom[current] = bottom;
+		}
+	}
+
+	/**
+	 * @return a bitboard with a bit set for every top-left cell the piece can be dragged to.
+	 */
+	public int getReachableCells() {
+		return reachable;
+	}
+
+	/**
+	 * @param x
+	 *            a column.
+	 * @param y
+	 *            a row.
+	 * @return whether the piece can be dragged so that its top-left corner is at the cell.
+	 */
+	public boolean isReachable(int x, int y) {
+		return (reachable & (1 << Bitboard.cellOf(x, y))) != 0;
+	}
+
+	/**
+	 * Finds the legal position closest to where the piece is being dragged to. The piece moves along
+	 * the row or the column of the reachable cell nearest to its current position, so it can turn a
+	 * corner once it is close to the corner's cell.
+	 *
+	 * @param currentX
+	 *            the column of the piece's current (legal) position.
+	 * @param currentY
+	 *            the row of the piece's current (legal) position.
+	 * @param targetX
+	 *            the column the piece is being dragged to.
+	 * @param targetY
+	 *            the row the piece is being dragged to.
+	 * @param out
+	 *            vector that receives the clamped column (x) and row (y).
+	 * @return out, for chaining.
+	 */
+	public Vector2 clamp(float currentX, float currentY, float targetX, float targetY, Vector2 out) {
+		int x = Math.round(currentX);
+		int y = Math.round(currentY);
+		if (x < 0 || x >= Bitboard.COLUMNS || y < 0 || y >= Bitboard.ROWS || (reachable & (1 << Bitboard.cellOf(x, y))) == 0) {
+			// the piece was not where the envelope was computed for (e.g. it is off the board), so
+			// it may not move
+			return out.set(currentX, currentY);
+		}
+		int cell = Bitboard.cellOf(x, y);
+
+		float rowX = MathUtils.clamp(targetX, runLeft[cell], runRight[cell]);
+		float columnY = MathUtils.clamp(targetY, runTop[cell], runBottom[cell]);
+
+		// squared distances from the target to the closest point of the row run and the column run
+		float rowDistance = (rowX - targetX) * (rowX - targetX) + (y - targetY) * (y - targetY);
+		float columnDistance = (x - targetX) * (x - targetX) + (columnY - targetY) * (columnY - targetY);
+		if (rowDistance <= columnDistance) {
+			return out.set(rowX, y);
+		}
+		return out.set(x, columnY);
+	}
+}
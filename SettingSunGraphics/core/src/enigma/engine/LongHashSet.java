@@ -0,0 +1,159 @@
+package enigma.engine;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive long values that is used as the memo of visited states while solving the
+ * puzzle.
+ *
+ * Why not use a TreeSet<Long>? Every look up in a TreeSet boxes the data vector into a Long object,
+ * walks a red-black tree node by node and allocates a new tree entry for every state inserted. The
+ * solver performs a look up for every valid move of every state it expands, so the memo ends up
+ * dominating both the number of objects created and the time spent waiting on memory.
+ *
+ * This set stores the keys directly in a single long array (open addressing). The array size is
+ * always a power of two so that the slot of a key can be found with a bit mask instead of a modulo.
+ * Collisions are resolved with linear probing (i.e. the next slot in the array is checked), which
+ * keeps look ups within neighboring memory locations. The value 0 is used to mark an empty slot,
+ * so a key of 0 is tracked separately with a flag.
+ */
+public class LongHashSet {
+	// the table is grown once it is more than half full; this keeps probe sequences short.
+	private static final int MAX_LOAD_NUMERATOR = 1;
+	private static final int MAX_LOAD_DENOMINATOR = 2;
+
+	// the multiplier used to scramble keys (golden ratio in 64 bit fixed point)
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private long[] keys;
+	private int mask;
+	private int shift;
+	private int size;
+	private int resizeThreshold;
+	private boolean containsZero = false;
+
+	/**
+	 * Constructor that pre-sizes the table so that the expected number of keys can be added without
+	 * the table needing to grow.
+	 *
+	 * @param expectedSize
+	 *            the number of keys the set is expected to hold.
+	 */
+	public LongHashSet(int expectedSize) {
+		int capacity = 2;
+		while (capacity * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR < expectedSize) {
+			capacity <<= 1;
+		}
+		allocateTable(capacity);
+	}
+
+	/**
+	 * Adds a key to the set.
+	 *
+	 * @param key
+	 *            the key to be added.
+	 * @return true if the key was not already in the set.
+	 */
+	public boolean add(long key) {
+		if (key == 0) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = slotFor(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+
+		if (++size > resizeThreshold) {
+			allocateTable(keys.length << 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Determines if a key has been added to the set.
+	 *
+	 * @param key
+	 *            the key to look up.
+	 * @return whether the key is in the set.
+	 */
+	public boolean contains(long key) {
+		if (key == 0) {
+			return containsZero;
+		}
+
+		int slot = slotFor(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all keys from the set. The table keeps its current size so that it can be reused
+	 * without allocating a new array.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+	/**
+	 * @return the number of keys in the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Scrambles the key and uses the high order bits to find the starting slot. Data vectors of
+	 * similar states only differ in a few low order bits, so using the key directly would cluster
+	 * them in the table.
+	 *
+	 * @param key
+	 *            the key to find a slot for.
+	 * @return the first slot to probe for the key.
+	 */
+	private int slotFor(long key) {
+		return (int) ((key * HASH_MULTIPLIER) >>> shift) & mask;
+	}
+
+	/**
+	 * Creates a table of the given capacity and re-inserts any keys from the old table.
+	 *
+	 * @param capacity
+	 *            the new capacity of the table (must be a power of two).
+	 */
+	private void allocateTable(int capacity) {
+		long[] oldKeys = keys;
+		keys = new long[capacity];
+		mask = capacity - 1;
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		resizeThreshold = capacity * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR;
+
+		if (oldKeys != null) {
+			for (long key : oldKeys) {
+				if (key != 0) {
+					int slot = slotFor(key);
+					while (keys[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = key;
+				}
+			}
+		}
+	}
+}
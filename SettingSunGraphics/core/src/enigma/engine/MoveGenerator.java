@@ -0,0 +1,203 @@
+package enigma.engine;
+
+/**
+ * Generates the states that can be reached from a state with a single move (the successors).
+ *
+ * The board always has exactly two empty cells (18 of the 20 cells are covered by pieces). A piece
+ * can only move in a direction if every cell it would newly occupy is empty, which means that any
+ * piece that can move must be next to one of the two empty cells. Instead of checking all 10
+ * pieces in all 4 directions (40 checks, most of which fail), generate() starts from the two empty
+ * cells and only checks the pieces that border them. Moves that need both empty cells (e.g. the
+ * sun moving down) are found from either empty cell, and the move table then checks that every
+ * cell the piece enters is empty.
+ *
+ * Successors are always produced in the same order: pieces in the order sun, wide, small pieces,
+ * tall pieces (the order used by the original solver), then directions in the order of Direction.
+ * generateAll() checks every piece and direction and is kept as a reference for generate().
+ *
+ * Objects of this class keep scratch data, so each solver uses its own generator.
+ */
+public class MoveGenerator {
+	// the most successors any state can have (every piece in every direction)
+	public static final int MAX_SUCCESSORS = 40;
+
+	// data vector indices in the order pieces are checked for moves
+	private static final int[] SEARCH_ORDER = { State.sunIndex, State.wideIndex, State.small1Index, State.small2Index, State.small3Index, State.small4Index, State.tall1Index, State.tall2Index, State.tall3Index, State.tall4Index };
+
+	// [empty cell * 4 + direction] -> the cell a piece must cover to move into the empty cell by
+	// moving in that direction; -1 if that cell is off the board.
+	private static final int[] SOURCE_CELL = new int[Bitboard.CELL_COUNT * 4];
+
+	static {
+		for (int cell = 0; cell < Bitboard.CELL_COUNT; ++cell) {
+			for (int direction = 0; direction < 4; ++direction) {
+				int x = Bitboard.columnOf(cell) - Bitboard.DIRECTION_DX[direction];
+				int y = Bitboard.rowOf(cell) - Bitboard.DIRECTION_DY[direction];
+				boolean onBoard = x >= 0 && x < Bitboard.COLUMNS && y >= 0 && y < Bitboard.ROWS;
+				SOURCE_CELL[cell * 4 + direction] = onBoard ? Bitboard.cellOf(x, y) : -1;
+			}
+		}
+	}
+
+	// [cell] -> position in the search order of the piece covering the cell (scratch data)
+	private final int[] owner = new int[Bitboard.CELL_COUNT];
+	private final State scratchState = new State(0L, null);
+
+	// the number of moves looked up in the move table; used to compare the two generators.
+	long probeCount = 0;
+
+	/**
+	 * Generates the successors of a state by checking only the pieces next to the empty cells.
+	 *
+	 * @param dataVector
+	 *            the data vector of the state to generate successors for.
+	 * @param successors
+	 *            array where the data vectors of the successors are stored (at least
+	 *            MAX_SUCCESSORS long).
+	 * @param moves
+	 *            optional array where the move producing each successor is stored (see moveOf),
+	 *            may be null.
+	 * @return the number of successors generated.
+	 */
+	public int generate(long dataVector, long[] successors, int[] moves) {
+		int occupied = 0;
+		for (int position = 0; position < SEARCH_ORDER.length; ++position) {
+			int index = SEARCH_ORDER[position];
+			int covered = Bitboard.shapeMask(Bitboard.SHAPE_AT_INDEX[index], Bitboard.cellOfField(Bitboard.fieldAt(dataVector, index)));
+			occupied |= covered;
+			while (covered != 0) {
+				owner[Integer.numberOfTrailingZeros(covered)] = position;
+				covered &= covered - 1;
+			}
+		}
+
+		// collect candidate moves as bits (position * 4 + direction); this removes duplicates and
+		// keeps the same order as the full search.
+		long candidates = 0;
+		int empty = ~occupied & Bitboard.FULL_BOARD;
+		while (empty != 0) {
+			int emptyCell = Integer.numberOfTrailingZeros(empty);
+			empty &= empty - 1;
+			for (int direction = 0; direction < 4; ++direction) {
+				int source = SOURCE_CELL[emptyCell * 4 + direction];
+				if (source >= 0 && (occupied & (1 << source)) != 0) {
+					candidates |= 1L << (owner[source] * 4 + direction);
+				}
+			}
+		}
+
+		int count = 0;
+		while (candidates != 0) {
+			int candidate = Long.numberOfTrailingZeros(candidates);
+			candidates &= candidates - 1;
+			count = addIfValid(dataVector, occupied, SEARCH_ORDER[candidate >>> 2], candidate & 3, successors, moves, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the successors of a state by checking every piece in every direction. This produces
+	 * the same successors, in the same order, as generate().
+	 *
+	 * @param dataVector
+	 *            the data vector of the state to generate successors for.
+	 * @param successors
+	 *            array where the data vectors of the successors are stored (at least
+	 *            MAX_SUCCESSORS long).
+	 * @param moves
+	 *            optional array where the move producing each successor is stored (see moveOf),
+	 *            may be null.
+	 * @return the number of successors generated.
+	 */
+	public int generateAll(long dataVector, long[] successors, int[] moves) {
+		int occupied = Bitboard.occupancy(dataVector);
+		int count = 0;
+		for (int position = 0; position < SEARCH_ORDER.length; ++position) {
+			for (int direction = 0; direction < 4; ++direction) {
+				count = addIfValid(dataVector, occupied, SEARCH_ORDER[position], direction, successors, moves, count);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Packs a move into a single int.
+	 *
+	 * @param index
+	 *            the data vector index of the moved piece.
+	 * @param direction
+	 *            the ordinal of the direction moved.
+	 * @return the packed move.
+	 */
+	public static int moveOf(int index, int direction) {
+		return (index << 2) | direction;
+	}
+
+	/**
+	 * @param move
+	 *            a packed move (see moveOf)
+	 * @return the data vector index of the moved piece.
+	 */
+	public static int indexOfMove(int move) {
+		return move >>> 2;
+	}
+
+	/**
+	 * @param move
+	 *            a packed move (see moveOf)
+	 * @return the direction the piece moved.
+	 */
+	public static Direction directionOfMove(int move) {
+		return Direction.directionValues[move & 3];
+	}
+
+	/**
+	 * Applies a move to a state. The move is not checked, it is expected to be one produced by
+	 * generate() for the same state. This method uses no scratch data, so it may be called from
+	 * any thread.
+	 *
+	 * @param dataVector
+	 *            the data vector of the state before the move.
+	 * @param move
+	 *            the packed move (see moveOf)
+	 * @return the data vector of the state after the move.
+	 */
+	public static long applyMove(long dataVector, int move) {
+		int index = indexOfMove(move);
+		int shift = 6 * index;
+		int cell = Bitboard.cellOfField(Bitboard.fieldAt(dataVector, index));
+		int destination = MoveTable.destination(MoveTable.entryOf(Bitboard.SHAPE_AT_INDEX[index], cell, move & 3));
+		dataVector = (dataVector & ~(63L << shift)) | ((long) Bitboard.fieldOfCell(destination) << shift);
+
+		// identical pieces are kept sorted, as in State.setPointAtIndex
+		if (index >= State.tall4Index && index <= State.tall1Index) {
+			return State.sortFields(dataVector, State.tall4Index);
+		} else if (index >= State.small4Index && index <= State.small1Index) {
+			return State.sortFields(dataVector, State.small4Index);
+		}
+		return dataVector;
+	}
+
+	/**
+	 * Checks a single move with the move table and stores the resulting state if it is valid.
+	 *
+	 * @return the new number of successors.
+	 */
+	private int addIfValid(long dataVector, int occupied, int index, int direction, long[] successors, int[] moves, int count) {
+		probeCount++;
+		int cell = Bitboard.cellOfField(Bitboard.fieldAt(dataVector, index));
+		int entry = MoveTable.entryOf(Bitboard.SHAPE_AT_INDEX[index], cell, direction);
+		if (!MoveTable.isValid(entry) || (MoveTable.entering(entry) & occupied) != 0) {
+			return count;
+		}
+
+		int destination = MoveTable.destination(entry);
+		scratchState.dataVector = dataVector;
+		scratchState.setPointAtIndex(index, Bitboard.columnOf(destination), Bitboard.rowOf(destination));
+		successors[count] = scratchState.dataVector;
+		if (moves != null) {
+			moves[count] = moveOf(index, direction);
+		}
+		return count + 1;
+	}
+}
@@ -0,0 +1,99 @@
+package enigma.engine;
+
+/**
+ * Precomputed move tables for the four piece shapes (see the shape identifiers in Bitboard).
+ *
+ * PlayPiece.getCoordinatePoints calculates the geometry of a piece every time it is called and then
+ * applies the move direction to every point. Since there are only 4 shapes, 20 top-left cells and 5
+ * directions, every possible move can instead be calculated once when the class is loaded. Each
+ * entry in the table holds:
+ *
+ * 1. whether the move keeps the piece on the board (the validity flag).
+ *
+ * 2. the top-left cell of the piece after the move (the destination).
+ *
+ * 3. the cells that the piece newly occupies after the move (the entering mask). The cells a piece
+ * already covers do not need to be checked, so a move is possible when none of the entering cells
+ * are occupied.
+ *
+ * Entries are stored in flat arrays indexed by entryOf(shape, cell, direction). This means that
+ * checking a move requires no bounds checks, geometry or objects.
+ */
+public class MoveTable {
+	public static final int DIRECTION_COUNT = Direction.directionValues.length;
+
+	private static final int ENTRY_COUNT = Bitboard.SHAPE_COUNT * Bitboard.CELL_COUNT * DIRECTION_COUNT;
+	private static final boolean[] VALID = new boolean[ENTRY_COUNT];
+	private static final int[] DESTINATION = new int[ENTRY_COUNT];
+	private static final int[] ENTERING = new int[ENTRY_COUNT];
+
+	static {
+		for (int shape = 0; shape < Bitboard.SHAPE_COUNT; ++shape) {
+			for (int cell = 0; cell < Bitboard.CELL_COUNT; ++cell) {
+				for (int direction = 0; direction < DIRECTION_COUNT; ++direction) {
+					buildEntry(shape, cell, direction);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the table entry of a move.
+	 *
+	 * @param shape
+	 *            the shape of the piece being moved.
+	 * @param cell
+	 *            the top-left cell of the piece before the move.
+	 * @param direction
+	 *            the ordinal of the direction the piece moves in.
+	 * @return the entry used to look up the move's data.
+	 */
+	public static int entryOf(int shape, int cell, int direction) {
+		return (shape * Bitboard.CELL_COUNT + cell) * DIRECTION_COUNT + direction;
+	}
+
+	/**
+	 * @param entry
+	 *            the entry of the move (see entryOf)
+	 * @return whether the piece is on the board before and after the move.
+	 */
+	public static boolean isValid(int entry) {
+		return VALID[entry];
+	}
+
+	/**
+	 * @param entry
+	 *            the entry of the move (see entryOf)
+	 * @return the top-left cell of the piece after the move (undefined for invalid moves).
+	 */
+	public static int destination(int entry) {
+		return DESTINATION[entry];
+	}
+
+	/**
+	 * @param entry
+	 *            the entry of the move (see entryOf)
+	 * @return the cells the piece occupies after the move that it did not occupy before the move.
+	 */
+	public static int entering(int entry) {
+		return ENTERING[entry];
+	}
+
+	private static void buildEntry(int shape, int cell, int direction) {
+		int entry = entryOf(shape, cell, direction);
+		int newX = Bitboard.columnOf(cell) + Bitboard.DIRECTION_DX[direction];
+		int newY = Bitboard.rowOf(cell) + Bitboard.DIRECTION_DY[direction];
+		int before = Bitboard.shapeMask(shape, cell);
+
+		if (before == 0 || newX < 0 || newX >= Bitboard.COLUMNS || newY < 0 || newY >= Bitboard.ROWS) {
+			VALID[entry] = false;
+			DESTINATION[entry] = -1;
+			return;
+		}
+
+		int after = Bitboard.shapeMask(shape, Bitboard.cellOf(newX, newY));
+		VALID[entry] = after != 0;
+		DESTINATION[entry] = after != 0 ? Bitboard.cellOf(newX, newY) : -1;
+		ENTERING[entry] = after & ~before;
+	}
+}
@@ -0,0 +1,76 @@
+package enigma.engine;
+
+/**
+ * The next move on a shortest path to winning, as returned by SettingSun.nextOptimalMove.
+ * 
+ * Pieces of the same type are interchangeable and are re-sorted after every move (see State), so
+ * the piece type of a tall or small piece names a position in the data vector rather than a
+ * specific piece. The piece's top-left point before the move identifies the piece on the board.
+ */
+public class OptimalMove {
+	// the piece type stored at each data vector index (see the index fields in State)
+	private static final PieceType[] TYPE_AT_INDEX = { PieceType.SMALL4, PieceType.SMALL3, PieceType.SMALL2, PieceType.SMALL1, PieceType.TALL4, PieceType.TALL3, PieceType.TALL2, PieceType.TALL1, PieceType.WIDE, PieceType.SUN };
+
+	private final PieceType piece;
+	private final Point from;
+	private final Direction direction;
+	private final State result;
+	private final int remainingMoves;
+
+	/**
+	 * Constructor for a move of the piece at a data vector index.
+	 * 
+	 * @param before
+	 *            the data vector of the state before the move.
+	 * @param move
+	 *            the packed move (see MoveGenerator.moveOf)
+	 * @param after
+	 *            the data vector of the state after the move.
+	 * @param remainingMoves
+	 *            the number of moves needed to win after this move.
+	 */
+	OptimalMove(long before, int move, long after, int remainingMoves) {
+		int index = MoveGenerator.indexOfMove(move);
+		int field = Bitboard.fieldAt(before, index);
+		this.piece = TYPE_AT_INDEX[index];
+		this.from = new Point(field >>> 3, field & 7);
+		this.direction = MoveGenerator.directionOfMove(move);
+		this.result = new State(after, null);
+		this.remainingMoves = remainingMoves;
+	}
+
+	/**
+	 * @return the piece to move.
+	 */
+	public PieceType getPiece() {
+		return piece;
+	}
+
+	/**
+	 * @return the top-left point of the piece before the move.
+	 */
+	public Point getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return the direction to move the piece.
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+
+	/**
+	 * @return the state of the board after the move.
+	 */
+	public State getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the number of moves still needed to win after this move is made.
+	 */
+	public int getRemainingMoves() {
+		return remainingMoves;
+	}
+}
@@ -54,6 +54,14 @@ public abstract class PlayPiece {
 	 */
 	abstract protected ArrayList<Point> buildPoints();
 
+	/**
+	 * Returns the shape of this piece. This is used to look up the piece in the precomputed tables
+	 * (see Bitboard and MoveTable).
+	 * 
+	 * @return the shape identifier of the piece.
+	 */
+	abstract public int getShape();
+
 	/**
 	 * Returns a "recycled" set of points that would occur for move direction provided.
 	 * 
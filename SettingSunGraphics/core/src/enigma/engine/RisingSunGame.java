@@ -1,7 +1,6 @@
 package enigma.engine;
 
 import java.util.ArrayList;
-import java.util.Stack;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
@@ -10,6 +9,7 @@ import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -22,6 +22,7 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 	// private ExtendViewport vp;
 	private Vector3 conversionVector = new Vector3();
 	private SpriteBatch batch;
+	private BitmapFont font;
 	private Texture baseTexture;
 	private Texture brownBackgroundTexture;
 	private TextureRegion sunRegion;
@@ -58,6 +59,8 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 	private float boardWidth;
 
 	private ArrayList<Sprite> allPieces = new ArrayList<Sprite>();
+	// the piece covering each cell of the board, updated whenever the pieces snap to cells
+	private CellGrid<Sprite> spriteGrid;
 
 	private Point sunPnt = new Point(0, 0);
 	private Point widePnt = new Point(0, 0);
@@ -72,6 +75,16 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 
 	// logic
 	private SettingSun gameSolver;
+	private static final int SOLUTION_CACHE_CAPACITY = 64;
+	private SolutionStore solutionStore = null;
+
+	// the solver runs for this long every frame (a quarter of a frame at 60 fps)
+	private static final long SOLVE_NANOS_PER_FRAME = 4000000L;
+	private SteppedSolver steppedSolver = new SteppedSolver();
+
+	// runs solves on a worker thread when the backend provides one (see SolveExecutor)
+	private SolveExecutor solveExecutor = null;
+	private BackgroundSolve backgroundSolve = null;
 	// private Random rand = new Random();
 
 	// interaction
@@ -83,16 +96,49 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 	private boolean freeMode = false; // allows free placement of blocks without constraints
 	private Point movingLastSnapCoordinate = new Point(0, 0);
 	private Point movingNewSnapCoordinate = new Point(0, 0);
+	private DragEnvelope dragEnvelope = new DragEnvelope();
+	private Vector2 clampedCell = new Vector2(0, 0);
 	private Point tempPoint = new Point(0, 0);
 
 	// Solution Variables
-	private State winningSolutionChain = null;
-	private State stateIterator = null;
-	private Stack<State> previousState = new Stack<State>();
+	private TimelineSlider timelineSlider;
+	private Sprite[] spritesByIndex; // [data vector index] -> the sprite of the piece (see State)
+
+	/**
+	 * Constructor for a game that keeps solutions in memory only.
+	 */
+	public RisingSunGame() {
+	}
+
+	/**
+	 * Constructor for a game that also keeps solutions in a store (e.g. on disk), so they are not
+	 * searched for again the next time the game is run.
+	 * 
+	 * @param solutionStore
+	 *            the store to keep solutions in.
+	 */
+	public RisingSunGame(SolutionStore solutionStore) {
+		this(solutionStore, null);
+	}
+
+	/**
+	 * Constructor for a game that keeps solutions in a store and solves on another thread, so the
+	 * game keeps running at full frame rate while solving.
+	 * 
+	 * @param solutionStore
+	 *            the store to keep solutions in, may be null.
+	 * @param solveExecutor
+	 *            the executor that runs solves, may be null to solve over frames instead.
+	 */
+	public RisingSunGame(SolutionStore solutionStore, SolveExecutor solveExecutor) {
+		this.solutionStore = solutionStore;
+		this.solveExecutor = solveExecutor;
+	}
 
 	@Override
 	public void create() {
 		batch = new SpriteBatch();
+		font = new BitmapFont();
 
 		createCamera();
 		createTextures();
@@ -116,11 +162,13 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 
 	private void createGameSolver() {
 		gameSolver = new SettingSun();
+		gameSolver.setSolutionCache(new SolutionCache(SOLUTION_CACHE_CAPACITY, solutionStore));
 	}
 
 	@Override
 	public void render() {
 		IO();
+		stepSolver();
 
 		Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
@@ -130,12 +178,15 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		batch.setProjectionMatrix(camera.combined);
 
 		drawSprites();
+		drawSolveProgress();
 
 		batch.end();
 	}
 
 	@Override
 	public void dispose() {
+		cancelSolve();
+		font.dispose();
 		batch.dispose();
 		baseTexture.dispose();
 	}
@@ -181,6 +232,24 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		allPieces.add(tall3);
 		allPieces.add(tall4);
 
+		spritesByIndex = new Sprite[State.sunIndex + 1];
+		spritesByIndex[State.sunIndex] = sun;
+		spritesByIndex[State.wideIndex] = wide;
+		spritesByIndex[State.tall1Index] = tall1;
+		spritesByIndex[State.tall2Index] = tall2;
+		spritesByIndex[State.tall3Index] = tall3;
+		spritesByIndex[State.tall4Index] = tall4;
+		spritesByIndex[State.small1Index] = small1;
+		spritesByIndex[State.small2Index] = small2;
+		spritesByIndex[State.small3Index] = small3;
+		spritesByIndex[State.small4Index] = small4;
+
+		spriteGrid = new CellGrid<Sprite>(Bitboard.COLUMNS, Bitboard.ROWS, allPieces.size());
+		for (Sprite piece : allPieces) {
+			// sizes in cells; the small piece is one cell
+			spriteGrid.add(piece, Math.round(piece.getWidth() / small1.getWidth()), Math.round(piece.getHeight() / small1.getHeight()));
+		}
+
 		boardCorner = new Sprite(smallSquareRegion);
 		background = new Sprite(brownBackgroundTexture);
 
@@ -189,8 +258,8 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		// Calculate corner position (wrote for easy readability)
 		int width = Gdx.graphics.getWidth();
 		int height = Gdx.graphics.getHeight();
-		boardHeight = small1.getHeight() * 5;
-		boardWidth = small1.getWidth() * 4;
+		boardHeight = small1.getHeight() * Bitboard.ROWS;
+		boardWidth = small1.getWidth() * Bitboard.COLUMNS;
 		float xPosition = (width - boardWidth) / 2;
 		float yPosition = height - ((height - boardHeight) / 2);
 		boardCorner.setPosition(xPosition, yPosition);
@@ -256,6 +325,32 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		freeModeBtn.setOrigin(freeModeBtn.getScaleX(), freeModeBtn.getScaleY());
 		freeModeBtn.setPosition(buttonDock.getX() + btnOffSet + btnIncrementValue * 3, buttonDock.getY() + yOffSet);
 
+		// the timeline slider sits just above the dock and is only shown while there is a solution
+		float trackWidth = buttonDock.getWidth() * buttonDock.getScaleX();
+		float trackHeight = scaleValueNumerator * 0.3f;
+		Sprite timelineTrack = new Sprite(brownBackgroundTexture);
+		timelineTrack.setScale(trackWidth / timelineTrack.getWidth(), trackHeight / timelineTrack.getHeight());
+		timelineTrack.setOrigin(0, 0);
+		timelineTrack.setPosition(buttonDock.getX(), buttonDock.getY() + buttonDock.getHeight() * buttonDock.getScaleY() + trackHeight);
+
+		Sprite timelineKnob = new Sprite(smallSquareRegion);
+		timelineKnob.setScale(scaleValueNumerator * 0.6f / timelineKnob.getWidth());
+		timelineKnob.setOrigin(0, 0);
+
+		timelineSlider = new TimelineSlider(timelineTrack, timelineKnob, new TimelineSlider.Listener() {
+			@Override
+			public void showState(State state) {
+				positionSpritesToState(state);
+			}
+
+			@Override
+			public void movePiece(int index, Point position) {
+				Sprite piece = spritesByIndex[index];
+				positionPiece(piece, position, small1.getWidth());
+				updateGameSolver(piece, position);
+				spriteGrid.place(piece, position.x, position.y);
+			}
+		});
 	}
 
 	private void shrinkPieces() {
@@ -277,6 +372,8 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		for (Sprite piece : allPieces) {
 			piece.draw(batch);
 		}
+
+		timelineSlider.draw(batch, font, 10, Gdx.graphics.getHeight() - 30);
 	}
 
 	private void positionSpritesToState(State state) {
@@ -302,6 +399,11 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		gameSolver.setTall3Point(convertPieceToPoint(tall3, tall3Pnt));
 		gameSolver.setTall4Point(convertPieceToPoint(tall4, tall4Pnt));
 
+		spriteGrid.clear();
+		for (Sprite piece : allPieces) {
+			convertPieceToPoint(piece, tempPoint);
+			spriteGrid.place(piece, tempPoint.x, tempPoint.y);
+		}
 	}
 
 	private void positionPiece(Sprite piece, Point position, float coordinateSize) {
@@ -329,21 +431,17 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 
 		if (Gdx.input.isKeyJustPressed(Input.Keys.S)) {
 			calculateSolution();
-			// winningSolutionChain = gameSolver.solvePuzzle();
-			// stateIterator = winningSolutionChain.linkedNode;
 		}
-		if (Gdx.input.isKeyJustPressed(Input.Keys.N)) {
-			nextState();
-			// if (winningSolutionChain != null && stateIterator != null) {
-			// positionSpritesToState(stateIterator);
-			// stateIterator = stateIterator.linkedNode;
-			// }
-
+		if (Gdx.input.isKeyJustPressed(Input.Keys.N) || Gdx.input.isKeyJustPressed(Input.Keys.RIGHT)) {
+			timelineSlider.next();
 		}
-		if (Gdx.input.isKeyJustPressed(Input.Keys.B)) {
-			previousState();
+		if (Gdx.input.isKeyJustPressed(Input.Keys.B) || Gdx.input.isKeyJustPressed(Input.Keys.LEFT)) {
+			timelineSlider.previous();
 		}
 
+		// seeking along the timeline of the solution
+		timelineSlider.handleKeys();
+
 		if (Gdx.input.isKeyJustPressed(Input.Keys.P)) {
 			printPiecePositions();
 		}
@@ -364,9 +462,17 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 	}
 
 	private Sprite findPieceSpriteTouched(Vector3 pointTouched) {
-		for (Sprite piece : allPieces) {
-			if (touchInSprite(piece, pointTouched)) {
-				return piece;
+		int x = (int) Math.floor((pointTouched.x - boardCorner.getX()) / small1.getWidth());
+		int y = (int) Math.floor((boardCorner.getY() - pointTouched.y) / small1.getHeight());
+		Sprite piece = spriteGrid.itemAt(x, y);
+		if (piece != null) {
+			return piece;
+		}
+
+		// a piece that is not completely on the board is not in the grid
+		for (Sprite unplaced : allPieces) {
+			if (!spriteGrid.isPlaced(unplaced) && touchInSprite(unplaced, pointTouched)) {
+				return unplaced;
 			}
 		}
 		return null;
@@ -386,38 +492,6 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		return false;
 	}
 
-	/**
-	 * minX and minY : first term is the actual x value, the second term is a tolerance correction
-	 * maxX and maxY : it is the minimumX (without tolerance) + the width/height of the sprite
-	 * 
-	 * @param first
-	 * @param second
-	 * @return
-	 */
-	private boolean twoSpritesCollide(Sprite first, Sprite second) {
-		// find left most sprite
-		Sprite leftSprite = first.getX() < second.getX() ? first : second;
-		Sprite rightSprite = leftSprite == second ? first : second;
-		float xRange = leftSprite.getWidth() * leftSprite.getScaleX();
-		float minX = (leftSprite.getX());
-		float maxX = (leftSprite.getX() + xRange);
-
-		if (rightSprite.getX() >= minX && rightSprite.getX() <= maxX) {
-
-			Sprite bottomSprite = first.getY() < second.getY() ? first : second;
-			Sprite topSprite = bottomSprite == second ? first : second;
-			float yRange = bottomSprite.getHeight() * bottomSprite.getScaleY();
-			float minY = bottomSprite.getY();
-			float maxY = (bottomSprite.getY() + yRange);
-
-			if (topSprite.getY() >= minY && topSprite.getY() <= maxY) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	/**
 	 * @unfinished
 	 * @bug
@@ -454,21 +528,12 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 		}
 	}
 
+	/**
+	 * Checks the cells the piece would snap to against the other pieces' cells (see CellGrid).
+	 */
 	private boolean pieceCollidesWithAnotherPieceOrOffBoard(Sprite piece) {
-		if (pieceOffBoard(piece)) {
-			return true;
-		}
-
-		for (Sprite otherPiece : allPieces) {
-			// don't check for collision with self
-			if (piece != otherPiece) {
-				// check collision for each piece, return true if there was a collision
-				if (twoSpritesCollide(piece, otherPiece)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		convertPieceToPoint(piece, tempPoint);
+		return !spriteGrid.fits(piece, tempPoint.x, tempPoint.y);
 	}
 
 	@Override
@@ -477,10 +542,18 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 			camera.unproject(conversionVector.set(screenX, screenY, 0));
 			Sprite spriteTouched = findPieceSpriteTouched(conversionVector);
 			if (spriteTouched != null) {
+				// the configuration is about to change, so a solve in progress is no longer useful
+				cancelSolve();
+				timelineSlider.piecesMoved();
 				movingSprite = spriteTouched;
 				convertPieceToPoint(movingSprite, movingLastCoordinate);
-				convertPieceToPoint(movingSprite, movingLastSnapCoordinate);// TODO testing jump
-																			// prevention
+				convertPieceToPoint(movingSprite, movingLastSnapCoordinate);
+
+				// the other pieces stay in place during a drag, so where it can go is found once
+				if (!freeMode && !gameSolver.computeDragEnvelope(movingLastSnapCoordinate, dragEnvelope)) {
+					movingSprite = null;
+					return true;
+				}
 
 				originalMovingSpritePos.x = movingSprite.getX();
 				originalMovingSpritePos.y = movingSprite.getY();
@@ -490,12 +563,16 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 
 				return true;
 			} else {
+				if (timelineSlider.touchDown(conversionVector)) {
+					return true;
+				}
+
 				// check if a button was pressed
 				if (touchInSprite(backBtn, conversionVector)) {
-					previousState();
+					timelineSlider.previous();
 				}
 				if (touchInSprite(nextBtn, conversionVector)) {
-					nextState();
+					timelineSlider.next();
 				}
 				if (touchInSprite(solutionBtn, conversionVector)) {
 					calculateSolution();
@@ -526,14 +603,16 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 			if (movingSprite != null) {
 				convertPieceToPoint(movingSprite, movingLastCoordinate);
 				positionPiece(movingSprite, movingLastCoordinate, small1.getWidth());
-//				updateGameSolver(movingSprite, movingLastCoordinate); // TODO testing comment out
-				 updateGameSolver(movingSprite, movingLastSnapCoordinate);
+				updateGameSolver(movingSprite, movingLastSnapCoordinate);
 
+				// the grid follows the screen: in free mode the piece stays where it was dropped
+				// (even on another piece), while the solver keeps its last snap position
+				spriteGrid.place(movingSprite, movingLastCoordinate.x, movingLastCoordinate.y);
 			}
 
 			// remove any constraints used in moving sprites
 			movingSprite = null;
-			// lock.unlockAll();
+			timelineSlider.touchUp();
 			return true;
 		}
 		return false;
@@ -565,44 +644,123 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 	}
 
 	private void calculateSolution() {
-		winningSolutionChain = gameSolver.solvePuzzle();
-		stateIterator = winningSolutionChain;// .linkedNode;
-		previousState.removeAllElements();	//clear stack
 		for(Sprite piece : allPieces){
 			updateGameSolver(piece, convertPieceToPoint(piece, tempPoint));
 		}
+
+		// a cached solution is shown right away, otherwise the search is spread over frames
+		State start = gameSolver.getCurrentState();
+		Solution cached = gameSolver.getSolutionCache().get(start.dataVector);
+		cancelSolve();
+		if (cached != null) {
+			showSolution(cached);
+		} else if (solveExecutor != null) {
+			startBackgroundSolve(start);
+		} else {
+			steppedSolver.start(start);
+		}
 	}
 
-	private void nextState() {
-		if (winningSolutionChain != null && stateIterator != null) {
-			previousState.push(stateIterator);
-			stateIterator = stateIterator.linkedNode;
-			if (stateIterator != null) {
-				positionSpritesToState(stateIterator);
+	/**
+	 * Starts a solve on the executor. When it finishes, the result is handed back to the render
+	 * thread with postRunnable; a solve that was cancelled in the meantime is ignored.
+	 */
+	private void startBackgroundSolve(State start) {
+		final BackgroundSolve solve = new BackgroundSolve(start);
+		backgroundSolve = solve;
+		solveExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				solve.run();
+				Gdx.app.postRunnable(new Runnable() {
+					@Override
+					public void run() {
+						finishBackgroundSolve(solve);
+					}
+				});
 			}
+		});
+	}
+
+	private void finishBackgroundSolve(BackgroundSolve solve) {
+		if (solve != backgroundSolve || solve.isCancelled()) {
+			return;
+		}
+		backgroundSolve = null;
+		showFoundSolution(solve.getResult().getSolution());
+	}
+
+	/**
+	 * Stops any solve in progress, e.g. because a piece was moved and its result would be stale.
+	 */
+	private void cancelSolve() {
+		steppedSolver.cancel();
+		if (backgroundSolve != null) {
+			backgroundSolve.cancel();
+			backgroundSolve = null;
 		}
 	}
 
-	private void previousState() {
-		if (winningSolutionChain != null && !previousState.isEmpty()) {
-			stateIterator = previousState.pop();
-			positionSpritesToState(stateIterator);
+	/**
+	 * Draws the number of expanded states and the depth of the search while a solve is running.
+	 */
+	private void drawSolveProgress() {
+		int expanded;
+		int depth;
+		if (backgroundSolve != null) {
+			expanded = backgroundSolve.getExpandedCount();
+			depth = backgroundSolve.getDepth();
+		} else if (steppedSolver.isRunning()) {
+			expanded = steppedSolver.getExpandedCount();
+			depth = steppedSolver.getDepth();
+		} else {
+			return;
+		}
+		font.draw(batch, "Solving... " + expanded + " states, depth " + depth, 10, Gdx.graphics.getHeight() - 10);
+	}
 
+	/**
+	 * Continues a solve in progress for part of a frame, and shows the solution once it is found.
+	 */
+	private void stepSolver() {
+		if (steppedSolver.isRunning() && steppedSolver.step(SOLVE_NANOS_PER_FRAME)) {
+			showFoundSolution(steppedSolver.getResult().getSolution());
 		}
 	}
 
+	/**
+	 * Caches a solution found by a search and shows it.
+	 * 
+	 * @param solution
+	 *            the linked list of states found, or null if there is no solution.
+	 */
+	private void showFoundSolution(State solution) {
+		if (solution == null) {
+			showSolution(null);
+			return;
+		}
+		Solution compact = Solution.fromStates(solution);
+		gameSolver.getSolutionCache().put(compact);
+		showSolution(compact);
+	}
+
+	/**
+	 * Shows the timeline of a solution, starting at its first step (the pieces are already there).
+	 */
+	private void showSolution(Solution solution) {
+		timelineSlider.show(solution);
+	}
+
 	@Override
 	public boolean touchDragged(int screenX, int screenY, int pointer) {
-		if (movingSprite != null && pointer == 0) {
-			// TODO: START HERE - add a check to see if piece is transitioning to new coordinate
-			// (code already
-			// made in the SettingSun.java). use this check along w/ collision.
-			// add a field for the last snapped coordinate, always check if the new evaluated snap
-			// Point.java
-			// instance is something different. If it is, ask the game solver
-			// (gameSolver.isValidTransition())
-			// if the move will result in a valid configuration.
+		if (pointer == 0) {
+			camera.unproject(conversionVector.set(screenX, screenY, 0));
+			if (timelineSlider.touchDragged(conversionVector)) {
+				return true;
+			}
+		}
 
+		if (movingSprite != null && pointer == 0) {
 			// convert the screen coordinates to game coordinates
 			camera.unproject(conversionVector.set(screenX, screenY, 0));
 
@@ -623,62 +781,42 @@ public class RisingSunGame extends ApplicationAdapter implements InputProcessor
 				return true;
 			}
 
-			// unlock certain regions if user restored point back (piece jumping prevention)
-			// lock.attemptUnlock(movingSprite);
-
-			// collision checking
-			// test the new position (both x and y changed)
-			if (!pieceCollidesWithAnotherPieceOrOffBoard(movingSprite) && checkAndUpdateSnap(movingSprite)) {
-				return true;
-			} else {
-			}
-
-			// test only changing the x value (sliding along a piece) because function yet to return
-			movingSprite.setY(draggingTemp.y);
-			if (!pieceCollidesWithAnotherPieceOrOffBoard(movingSprite) && checkAndUpdateSnap(movingSprite)) {
-				return true;
-			} else {
-				// something collided, restore the calculated y value before checking x
-				movingSprite.setY(newY);
-			}
+			// keep the piece on the runs of cells it can reach (see DragEnvelope)
+			dragEnvelope.clamp(toColumn(draggingTemp.x), toRow(movingSprite, draggingTemp.y), toColumn(newX), toRow(movingSprite, newY), clampedCell);
+			movingSprite.setPosition(fromColumn(clampedCell.x), fromRow(movingSprite, clampedCell.y));
 
-			// test keeping x same while changing y (piece sliding along the edge of another piece)
-			movingSprite.setX(draggingTemp.x);
-			if (!pieceCollidesWithAnotherPieceOrOffBoard(movingSprite) && checkAndUpdateSnap(movingSprite)) {
-				return true;
-			} else {
+			// every cell the piece snaps to is reached by valid moves, so the solver follows it
+			convertPieceToPoint(movingSprite, movingNewSnapCoordinate);
+			if (!movingNewSnapCoordinate.equals(movingLastSnapCoordinate)) {
+				updateGameSolver(movingSprite, movingNewSnapCoordinate);
+				movingLastSnapCoordinate.copyPoint(movingNewSnapCoordinate);
 			}
-
-			// restore the position before it was modified because there were no valid locations
-			movingSprite.setX(draggingTemp.x);
-			movingSprite.setY(draggingTemp.y);
 			return true;
-
 		}
 		return false;
 	}
 
-	private boolean checkAndUpdateSnap(Sprite movePiece) {
-		// update the new snap point to compareAgasint
-		convertPieceToPoint(movePiece, movingNewSnapCoordinate);
-		if (movingNewSnapCoordinate.equals(movingLastSnapCoordinate)) {
-			// no transition happened
-			return true;
-		} else {
-			// check if the transition is valid (movingLastSnapCoordinate must be a valid position
-			// in game solver)
-			if (gameSolver.isValidTransition(movingLastSnapCoordinate, movingNewSnapCoordinate)) {
-				// commit transition by updating gameSolver
-				// (updates boolean board internally and prepares this method for next call)
-				updateGameSolver(movePiece, movingNewSnapCoordinate);
-
-				// update the last snapCoordinate
-				movingLastSnapCoordinate.copyPoint(movingNewSnapCoordinate);
-				return true;
-			} else {
-				return false;
-			}
-		}
+	/**
+	 * Converts a sprite's x position into a column of the board (fractions allowed).
+	 */
+	private float toColumn(float spriteX) {
+		return (spriteX - boardCorner.getX()) / small1.getWidth();
+	}
+
+	/**
+	 * Converts a sprite's y position into a row of the board (fractions allowed), the inverse of
+	 * positionPiece.
+	 */
+	private float toRow(Sprite piece, float spriteY) {
+		return (boardCorner.getY() - piece.getHeight() * piece.getScaleY() - spriteY) / small1.getHeight();
+	}
+
+	private float fromColumn(float column) {
+		return boardCorner.getX() + column * small1.getWidth();
+	}
+
+	private float fromRow(Sprite piece, float row) {
+		return boardCorner.getY() - piece.getHeight() * piece.getScaleY() - row * small1.getHeight();
 	}
 
 	// ------------- Below are un-used input processor method overrides -------------
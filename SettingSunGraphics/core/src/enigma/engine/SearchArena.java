@@ -0,0 +1,143 @@
+package enigma.engine;
+
+/**
+ * Storage for the states found during a breadth first search.
+ *
+ * Previously, every state found by the search was a State object (holding the data vector and a
+ * link to the state it came from) that was added to a LinkedList queue. That is 3 objects per
+ * state: the state, the node of the list and the key stored in the memo.
+ *
+ * The arena instead stores states in two parallel arrays: the data vector of every state, and the
+ * position in the arena of the state it was found from (its parent). States are added in the order
+ * they are found, which is also the order a breadth first search expands them, so the queue is
+ * simply a cursor (head) that moves through the arrays. The solution is rebuilt at the end by
+ * following the parent positions back to the start state.
+ *
+ * The arrays grow as needed and are kept between searches, so a solver that reuses its arena
+ * allocates almost nothing while searching.
+ */
+public class SearchArena {
+	// parent position of the start state
+	public static final int NO_PARENT = -1;
+
+	private long[] dataVectors;
+	private int[] parents;
+
+	// position of the next state to expand
+	private int head = 0;
+
+	// number of states added
+	private int tail = 0;
+
+	/**
+	 * Constructor that allocates room for an expected number of states.
+	 *
+	 * @param initialCapacity
+	 *            the number of states that can be added before the arena grows.
+	 */
+	public SearchArena(int initialCapacity) {
+		dataVectors = new long[initialCapacity];
+		parents = new int[initialCapacity];
+	}
+
+	/**
+	 * Removes all states so the arena can be used for a new search. The arrays are kept.
+	 */
+	public void reset() {
+		head = 0;
+		tail = 0;
+	}
+
+	/**
+	 * Adds a state to the end of the queue.
+	 *
+	 * @param dataVector
+	 *            the data vector of the state.
+	 * @param parent
+	 *            the position of the state it was found from (NO_PARENT for the start state).
+	 * @return the position of the added state.
+	 */
+	public int add(long dataVector, int parent) {
+		if (tail == dataVectors.length) {
+			grow();
+		}
+		dataVectors[tail] = dataVector;
+		parents[tail] = parent;
+		return tail++;
+	}
+
+	/**
+	 * @return whether there are states that have not been expanded.
+	 */
+	public boolean hasNext() {
+		return head < tail;
+	}
+
+	/**
+	 * Takes the next state to expand from the queue.
+	 *
+	 * @return the position of the state.
+	 */
+	public int next() {
+		return head++;
+	}
+
+	/**
+	 * @param position
+	 *            the position of a state in the arena.
+	 * @return the data vector of the state.
+	 */
+	public long dataVectorAt(int position) {
+		return dataVectors[position];
+	}
+
+	/**
+	 * @param position
+	 *            the position of a state in the arena.
+	 * @return the position of the state it was found from, or NO_PARENT.
+	 */
+	public int parentOf(int position) {
+		return parents[position];
+	}
+
+	/**
+	 * @return the number of states added since the last reset.
+	 */
+	public int size() {
+		return tail;
+	}
+
+	/**
+	 * @return the number of states taken from the queue since the last reset.
+	 */
+	public int expandedCount() {
+		return head;
+	}
+
+	/**
+	 * Builds the linked list of states from the start state to the state at a position by following
+	 * parent positions.
+	 *
+	 * @param position
+	 *            the position of the last state of the list.
+	 * @return the first state of the list (the start state).
+	 */
+	public State buildChain(int position) {
+		State first = null;
+		while (position != NO_PARENT) {
+			first = new State(dataVectors[position], first);
+			position = parents[position];
+		}
+		return first;
+	}
+
+	private void grow() {
+		int capacity = Math.max(16, dataVectors.length * 2);
+		long[] largerDataVectors = new long[capacity];
+		int[] largerParents = new int[capacity];
+		System.arraycopy(dataVectors, 0, largerDataVectors, 0, tail);
+		System.arraycopy(parents, 0, largerParents, 0, tail);
+		dataVectors = largerDataVectors;
+		parents = largerParents;
+	}
+}
@@ -1,10 +1,7 @@
 package enigma.engine;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Scanner;
-import java.util.TreeSet;
 
 /**
  * This class provides the functionality to solve the puzzle. The puzzle is solved using a breadth
@@ -14,28 +11,38 @@ import java.util.TreeSet;
  * To summarize how the algorithm works:
  * 
  * 1. There is a state class which acts as a linked list. The state class saves a configuration of
- * the game in a "long" data vector. the state class is a singly linked list that can point to
- * previous states.
+ * the game in a "long" data vector. the state class is a singly linked list, which is the form the
+ * solution is returned in. While searching, states are only stored as data vectors in a search
+ * arena (see SearchArena), along with the position of the state each was found from.
  * 
- * 2. There is a boolean 2d array that represents the game board. Positions marked as true represent
- * that location being occupied by a piece.
+ * 2. The game board is represented as a bitboard (see Bitboard), a 20 bit integer where set bits
+ * represent that location being occupied by a piece. The bitboard is derived directly from a
+ * state's data vector. (The original implementation used a boolean 2d array loaded from the piece
+ * objects; it is still available through solvePuzzleWithPieces.)
  * 
- * 3. There is a balanced binary search tree that state's keys (the data vector is the key) are
- * inserted to when they are found to be a valid configuration. This provides memoization and allows
- * the program to look up if a state has already been visited (and it is therefore discarded)
+ * 3. There is a hash set of primitive longs (see LongHashSet) that state's keys (the data vector is
+ * the key) are inserted to when they are found to be a valid configuration. This provides
+ * memoization and allows the program to look up if a state has already been visited (and it is
+ * therefore discarded)
  * 
- * 4. The breadth first algorithm works by first loading the start state into a queue. There is then
+ * 4. The breadth first algorithm works by first loading the start state into a queue (the arena). There is then
  * a while loop that operates as long as there are states in the queue. As a state is pulled out
- * from the queue, each piece is checked for new valid moves (the boolean array from 3. is used in
- * this validation). If a valid move is found, the new resulting state is checked to be the winning
+ * from the queue, each piece is checked for new valid moves (the board from 2. is used in this
+ * validation). If a valid move is found, the new resulting state is checked to be the winning
  * state and is also checked to see if the state has already been encountered. If it is a winning
- * state, the function (solvePuzzle) returns a linked list of the states required to transition to
- * to find the solution.
+ * state, the function (solvePuzzle) follows the found-from positions back to the start state to
+ * build a linked list of the states required to transition to to find the solution.
  * 
  * Note: there were many optimizations made to reduce object creations, but what is above is the
  * general idea. e.g. new states are only created if it is a state that will go into the queue (or a
  * winning state).
  * 
+ * Concurrency: every structure used while solving (the arena, the memo, the move generator and the
+ * piece objects) belongs to the SettingSun object, and the shared tables (Bitboard, MoveTable,
+ * StateIndex, DistanceTable) are immutable once built. A SettingSun object is not thread safe, since
+ * a solve reuses its scratch structures, but separate objects can solve on separate threads at the
+ * same time. A worker that solves requests should hold its own SettingSun (e.g. one per thread).
+ * 
  * 
  * 
  * 
@@ -47,11 +54,17 @@ public class SettingSun {
 
 	private final int row = 5;
 	private final int col = 4;
+
+	// roughly the number of distinct configurations (see PointCompare), used to pre-size the memo
+	private static final int EXPECTED_STATE_COUNT = 1 << 16;
 	private boolean[][] board = new boolean[row][col];
-	private Queue<State> stateQueue = new LinkedList<State>();
+	private SearchArena arena = new SearchArena(EXPECTED_STATE_COUNT);
 	// private BSTNode memo; //TODO remove this from github
-	private TreeSet<Long> memo;
-	private State winState = null;
+	private LongHashSet memo = new LongHashSet(EXPECTED_STATE_COUNT);
+
+	// arena position of the win state, NO_WIN_STATE until one is found
+	private static final int NO_WIN_STATE = -1;
+	private int winIndex = NO_WIN_STATE;
 
 	// pieces
 	SunPiece sun;
@@ -66,9 +79,38 @@ public class SettingSun {
 	SmallPiece small4;
 	private Point winPoint = new Point(1, 3);
 
+	// the win point packed the same way as it is in a data vector
+	private static final int WIN_SUN_FIELD = (1 << 3) | 3;
+
 	// other
 	int iterationCount;
-	private State tempState;
+	private State tempState = new State(0L, null);
+	private State expandingState = new State(0L, null);
+	private MoveGenerator moveGenerator = new MoveGenerator();
+	private long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+	private int[] successorMoves = new int[MoveGenerator.MAX_SUCCESSORS];
+	private BidirectionalSearch bidirectionalSearch = null;
+	private boolean useSymmetry = false;
+	private SolutionCache solutionCache = null;
+	private boolean rejectUnsolvableStarts = false;
+
+	// limits of solvePuzzle(long, int, CancellationToken)
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+	public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+	// the deadline and token are checked once every this many expansions (a power of 2)
+	public static final int LIMIT_CHECK_INTERVAL = 1024;
+
+	// how the last search ended, and the depth of the last state it expanded
+	private SolveResult.Status stopStatus = SolveResult.Status.UNSOLVABLE;
+	private int depthReached = 0;
+
+	// occupancy model of the piece objects, kept up to date by movePiece: every piece, the piece
+	// whose top-left point is at each cell, how many pieces cover each cell, and the covered cells
+	private final PlayPiece[] pieces;
+	private final PlayPiece[] pieceAtTopLeft = new PlayPiece[Bitboard.CELL_COUNT];
+	private final byte[] coverCounts = new byte[Bitboard.CELL_COUNT];
+	private int occupied = 0;
 
 	/**
 	 * Standard constructor that sets the piece objects to the starting state of the board.f
@@ -94,99 +136,335 @@ public class SettingSun {
 		small2.setID(2);
 		small3.setID(3);
 		small4.setID(4);
+
+		pieces = new PlayPiece[] { sun, wide, small1, small2, small3, small4, tall1, tall2, tall3, tall4 };
+		for (PlayPiece piece : pieces) {
+			addToOccupancy(piece);
+		}
 	}
 
 	/**
 	 * Find the solution to the problem and returns the solution in the form of a singly linked
 	 * list.
 	 * 
+	 * Moves are generated with bitboards (see Bitboard) that are derived directly from each state's
+	 * data vector. If a solution cache has been set, it is checked before searching.
+	 * 
 	 * @return returns a linked list of states to find the solution to the problem.
 	 */
 	public State solvePuzzle() {
+		return solvePuzzle(NO_DEADLINE, NO_LIMIT, null).getSolution();
+	}
+
+	/**
+	 * Find the solution to the problem, giving up when a deadline passes, when a number of states
+	 * have been expanded or when a cancellation token is cancelled. The limits are checked every
+	 * LIMIT_CHECK_INTERVAL expanded states, so a search may run slightly past its deadline.
+	 * 
+	 * @param deadlineMillis
+	 *            the time (see System.currentTimeMillis) after which the search stops, or
+	 *            NO_DEADLINE.
+	 * @param maxExpandedStates
+	 *            the most states the search may expand, or NO_LIMIT.
+	 * @param token
+	 *            token that stops the search when it is cancelled, may be null.
+	 * @return the status of the search, the solution if one was found, and how far the search got.
+	 */
+	public SolveResult solvePuzzle(long deadlineMillis, int maxExpandedStates, CancellationToken token) {
+		long startMillis = System.currentTimeMillis();
+		long startKey = getCurrentState().dataVector;
+
+		// popular configurations are answered from the cache without searching
+		if (solutionCache != null) {
+			Solution cached = solutionCache.get(startKey);
+			if (cached != null) {
+				return new SolveResult(SolveResult.Status.SOLVED, cached.toStates(), 0, 0, cached.getLength(), System.currentTimeMillis() - startMillis);
+			}
+		}
+
+		State solution = solve(true, false, deadlineMillis, maxExpandedStates, token);
+		if (solution != null && solutionCache != null) {
+			solutionCache.put(Solution.fromStates(solution));
+		}
+		int depth = solution != null ? movesIn(solution) : depthReached;
+		return new SolveResult(stopStatus, solution, arena.expandedCount(), arena.size(), depth, System.currentTimeMillis() - startMillis);
+	}
+
+	/**
+	 * Sets the cache that solvePuzzle checks before searching (see SolutionCache). Solutions found
+	 * by solvePuzzle are added to the cache.
+	 * 
+	 * @param solutionCache
+	 *            the cache to use, or null to always search.
+	 */
+	public void setSolutionCache(SolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
+	/**
+	 * @return the cache used by solvePuzzle, or null if there is none.
+	 */
+	public SolutionCache getSolutionCache() {
+		return solutionCache;
+	}
+
+	/**
+	 * Sets whether the searches check the component index (see ComponentIndex) before searching, so
+	 * a start that can not reach the goal is rejected at once instead of after searching its whole
+	 * component. The index is built by the first check, which takes several times as long as a
+	 * solve, so this is off by default; turn it on where that cost is paid up front or off the
+	 * render thread (e.g. by a worker that solves many starts).
+	 * 
+	 * @param rejectUnsolvableStarts
+	 *            whether unsolvable starts are rejected before searching.
+	 */
+	public void setRejectUnsolvableStarts(boolean rejectUnsolvableStarts) {
+		this.rejectUnsolvableStarts = rejectUnsolvableStarts;
+	}
+
+	/**
+	 * @return whether unsolvable starts are rejected before searching.
+	 */
+	public boolean isRejectingUnsolvableStarts() {
+		return rejectUnsolvableStarts;
+	}
+
+	/**
+	 * Find the solution to the problem, treating a configuration and its left-right mirror image as
+	 * the same state (see Symmetry). The memo is keyed by the canonical key of each state, so about
+	 * half as many states are explored. The states in the queue are still the real states, so the
+	 * solution is a list of real moves from the current configuration and has the same number of
+	 * moves as the one found by solvePuzzle.
+	 * 
+	 * @return returns a linked list of states to find the solution to the problem.
+	 */
+	public State solvePuzzleWithSymmetry() {
+		return solve(true, true);
+	}
+
+	/**
+	 * Find the solution to the problem using the piece objects (SunPiece, TallPiece, etc) and the
+	 * boolean board to generate moves. This was the original implementation of the solver; it is
+	 * kept as a reference to check the bitboard implementation against.
+	 * 
+	 * @return returns a linked list of states to find the solution to the problem.
+	 */
+	public State solvePuzzleWithPieces() {
+		return solve(false, false);
+	}
+
+	/**
+	 * Runs the breadth first search.
+	 * 
+	 * @param useBitboard
+	 *            whether moves are generated with bitboards or with the piece objects.
+	 * @param useSymmetry
+	 *            whether mirrored states share a key in the memo.
+	 * @return returns a linked list of states to find the solution to the problem, or null if no
+	 *         solution was found.
+	 */
+	private State solve(boolean useBitboard, boolean useSymmetry) {
+		return solve(useBitboard, useSymmetry, NO_DEADLINE, NO_LIMIT, null);
+	}
+
+	/**
+	 * Runs the breadth first search until it finds a solution, runs out of states, or reaches one
+	 * of its limits. The reason the search ended is stored in stopStatus, and the depth of the last
+	 * expanded state in depthReached.
+	 * 
+	 * @param useBitboard
+	 *            whether moves are generated with bitboards or with the piece objects.
+	 * @param useSymmetry
+	 *            whether mirrored states share a key in the memo.
+	 * @param deadlineMillis
+	 *            the time after which the search stops, or NO_DEADLINE.
+	 * @param maxExpandedStates
+	 *            the most states the search may expand, or NO_LIMIT.
+	 * @param token
+	 *            token that stops the search when it is cancelled, may be null.
+	 * @return returns a linked list of states to find the solution to the problem, or null if no
+	 *         solution was found.
+	 */
+	private State solve(boolean useBitboard, boolean useSymmetry, long deadlineMillis, int maxExpandedStates, CancellationToken token) {
 		clearFields(); // TODO add this to github
-		loadStartStateIntoQueue();
+		this.useSymmetry = useSymmetry;
 		iterationCount = 0;
+		depthReached = 0;
+		stopStatus = SolveResult.Status.UNSOLVABLE;
+
+		// a start that can not reach the goal is rejected without searching its whole component
+		if (rejectUnsolvableStarts && !ComponentIndex.isSolvable(getCurrentState().dataVector)) {
+			System.out.println("No Solution Found. The start state can not reach the goal.");
+			return null;
+		}
+
+		loadStartStateIntoQueue();
+
+		// arena position of the first state that is one move deeper than the states before it
+		int nextLayerStart = arena.size();
 		while (true) {
 			iterationCount++;
 
 			// check if a search found a win state
-			if (winState != null) {
+			if (winIndex != NO_WIN_STATE) {
+				stopStatus = SolveResult.Status.SOLVED;
 				break;
 			}
 
 			// check if queue has any states left to check
-			if (stateQueue.size() <= 0) {
+			if (!arena.hasNext()) {
 				// no solution found
 				System.out.println("No Solution Found. Max iteration:" + iterationCount);
 				break;
 			}
 
+			// check the limits; the clock and the token are only checked every few expansions
+			if (arena.expandedCount() >= maxExpandedStates) {
+				stopStatus = SolveResult.Status.BUDGET_EXHAUSTED;
+				break;
+			}
+			if ((iterationCount & (LIMIT_CHECK_INTERVAL - 1)) == 0) {
+				if (token != null && token.isCancelled()) {
+					stopStatus = SolveResult.Status.CANCELLED;
+					break;
+				}
+				if (deadlineMillis != NO_DEADLINE && System.currentTimeMillis() >= deadlineMillis) {
+					stopStatus = SolveResult.Status.BUDGET_EXHAUSTED;
+					break;
+				}
+			}
+
 			// load a state from the queue
-			State currState = stateQueue.poll();
-			updatePieceFields(currState);
-			loadPiecesToBoolBoard(currState);
+			int currIndex = arena.next();
+			if (currIndex == nextLayerStart) {
+				depthReached++;
+				nextLayerStart = arena.size();
+			}
 
 			// add valid state permutations, check for win state, check for state in map
-			addValidStates(sun, currState);
-			addValidStates(wide, currState);
-			addValidStates(small1, currState);
-			addValidStates(small2, currState);
-			addValidStates(small3, currState);
-			addValidStates(small4, currState);
-			addValidStates(tall1, currState);
-			addValidStates(tall2, currState);
-			addValidStates(tall3, currState);
-			addValidStates(tall4, currState);
+			if (useBitboard) {
+				addValidStatesFromBitboard(currIndex);
+			} else {
+				expandingState.dataVector = arena.dataVectorAt(currIndex);
+				updatePieceFields(expandingState);
+				loadPiecesToBoolBoard(expandingState);
+
+				addValidStates(sun, currIndex);
+				addValidStates(wide, currIndex);
+				addValidStates(small1, currIndex);
+				addValidStates(small2, currIndex);
+				addValidStates(small3, currIndex);
+				addValidStates(small4, currIndex);
+				addValidStates(tall1, currIndex);
+				addValidStates(tall2, currIndex);
+				addValidStates(tall3, currIndex);
+				addValidStates(tall4, currIndex);
+			}
 		}
 
-		// reverse win state linked list (currently in backwards order)
-		reverseStates(winState, null);
-
-		// dump the queue (for garbage collector)
-		while (!stateQueue.isEmpty()) {
-			stateQueue.poll();
+		// follow the found-from positions back to the start state
+		if (winIndex == NO_WIN_STATE) {
+			return null;
 		}
-
-		return winState;
+		return arena.buildChain(winIndex);
 	}
 
-	private void clearFields() {
-		winState = null;
-		while (stateQueue.size() != 0) {
-			stateQueue.poll();
-		}
-		if (memo != null) {
-			memo.removeAll(memo);
+	/**
+	 * @return the number of moves in a solution.
+	 */
+	private static int movesIn(State solution) {
+		int moves = 0;
+		for (State iter = solution.linkedNode; iter != null; iter = iter.linkedNode) {
+			moves++;
 		}
+		return moves;
+	}
 
+	/**
+	 * Checks if the puzzle can be solved from the current positions of the pieces, without
+	 * searching (see Solvability).
+	 * 
+	 * @return the status, component size and goal distance of the current configuration.
+	 */
+	public Solvability checkSolvability() {
+		return checkSolvability(getCurrentState());
 	}
 
 	/**
-	 * This takes a linked list of states and reverses the direction of links.
+	 * Checks if the puzzle can be solved from a state, without searching (see Solvability).
 	 * 
-	 * This was a weird way to implement reversing the list, but I wanted to see if I could get it
-	 * working. it works by using pointers to the current node, and the node before it. It saves the
-	 * currents node's link, then changes the link to the node before the current node.
+	 * @param state
+	 *            the state to check.
+	 * @return the status, component size and goal distance of the state.
+	 */
+	public Solvability checkSolvability(State state) {
+		return new Solvability(state.dataVector);
+	}
+
+	/**
+	 * Find the solution to the problem using the precomputed distance table (see DistanceTable)
+	 * instead of searching. The first call builds the table, which covers every configuration;
+	 * after that, a solution is found by repeatedly moving to a neighboring state that is one move
+	 * closer to winning.
 	 * 
-	 * With the link between the current and its original link broken, this method is called
-	 * recursively to set the next node to link back to the current node.
+	 * The solution has the same number of moves as the one found by solvePuzzle.
 	 * 
-	 * @param current
-	 *            the current node being checked (will become "before" on next call)
-	 * @param before
-	 *            the node before the current node.
+	 * @return returns a linked list of states to find the solution to the problem, or null if the
+	 *         puzzle can not be solved from the current configuration.
 	 */
-	private void reverseStates(State current, State before) {
-		// reversing a linked list
-		State next = current.linkedNode;
-		current.linkedNode = before;
+	public State solvePuzzleFromDistanceTable() {
+		return DistanceTable.solve(getCurrentState().dataVector);
+	}
 
-		// base case check
-		if (next == null) {
-			winState = current;
-		} else {
-			reverseStates(next, current);
+	/**
+	 * Finds the shortest way to get from the current positions of the pieces to another
+	 * configuration (e.g. a step of a tutorial). A bidirectional search is used (see
+	 * BidirectionalSearch), searching from both configurations until the searches meet.
+	 * 
+	 * @param target
+	 *            the configuration to reach.
+	 * @return returns a linked list of states from the current configuration to the target, or
+	 *         null if the target can not be reached.
+	 */
+	public State solvePuzzleTo(State target) {
+		if (bidirectionalSearch == null) {
+			bidirectionalSearch = new BidirectionalSearch();
+		}
+		return bidirectionalSearch.solve(getCurrentState(), target);
+	}
+
+	/**
+	 * Finds the next move on a shortest path to winning from the current positions of the pieces.
+	 * 
+	 * @return the next optimal move, or null if the puzzle is already won or can not be solved.
+	 */
+	public OptimalMove nextOptimalMove() {
+		return nextOptimalMove(getCurrentState());
+	}
+
+	/**
+	 * Finds the next move on a shortest path to winning from a state. This looks up the distance
+	 * table (see DistanceTable) instead of searching, so it only checks the neighbors of the state.
+	 * 
+	 * @param state
+	 *            the state to move from.
+	 * @return the next optimal move, or null if the state is already won or can not be solved.
+	 */
+	public OptimalMove nextOptimalMove(State state) {
+		long dataVector = state.dataVector;
+		int distance = DistanceTable.distanceOf(dataVector);
+		if (distance == DistanceTable.UNSOLVABLE || distance == 0) {
+			return null;
 		}
+
+		int i = DistanceTable.closerSuccessorIndex(moveGenerator, successors, successorMoves, dataVector, distance);
+		return new OptimalMove(dataVector, successorMoves[i], successors[i], distance - 1);
+	}
+
+	private void clearFields() {
+		winIndex = NO_WIN_STATE;
+		arena.reset();
+		memo.clear();
 	}
 
 	/**
@@ -196,12 +474,12 @@ public class SettingSun {
 	 * 
 	 * @param piece
 	 *            the piece to have all moves checked
-	 * @param currState
-	 *            the state used to determine if moves are valid.
+	 * @param currIndex
+	 *            the arena position of the state used to determine if moves are valid.
 	 */
-	private void addValidStates(PlayPiece piece, State currState) {
+	private void addValidStates(PlayPiece piece, int currIndex) {
 		// if win state has been found, simply return control so loop can end.
-		if (winState != null) {
+		if (winIndex != NO_WIN_STATE) {
 			return;
 		}
 
@@ -217,22 +495,13 @@ public class SettingSun {
 
 				// set up temporary state and see look up if it has already been visited
 				State newState = tempState;
-				tempState.copyDataFrom(currState);
+				tempState.dataVector = expandingState.dataVector;
 				updateStateForPieceAndCoords(piece, coordsAfterMove, newState);
 
-				// if state hasn't been visited, add it to the queue
-				if (!memo.contains(newState.dataVector)) {
-					memo.add(newState.dataVector);
-					if (isWinState(newState)) {
-						// set win state and break out of loop. No need to keep searching.
-						System.out.println("Solution Found.");
-						winState = new State(newState, currState);
-						break;
-					} else {
-						stateQueue.add(new State(newState, currState));
-					}
+				if (addStateIfNotVisited(newState.dataVector, currIndex)) {
+					// win state was found, no need to keep searching.
+					break;
 				}
-
 			}
 
 		}
@@ -241,6 +510,52 @@ public class SettingSun {
 		loadPointsIntoBooleanBoard(piece.getCoordinatePoints(Direction.STAY));
 	}
 
+	/**
+	 * This function generates every state reachable with a single move from the current state (see
+	 * MoveGenerator). Moves are found from the two empty cells of the board and checked using
+	 * bitboards derived from the data vector.
+	 * 
+	 * Successors are generated in the same order as the piece objects are checked in
+	 * solvePuzzleWithPieces, so both implementations find the same solution.
+	 * 
+	 * @param currIndex
+	 *            the arena position of the state used to determine if moves are valid.
+	 */
+	private void addValidStatesFromBitboard(int currIndex) {
+		int count = moveGenerator.generate(arena.dataVectorAt(currIndex), successors, null);
+		for (int i = 0; i < count; ++i) {
+			if (addStateIfNotVisited(successors[i], currIndex)) {
+				// win state was found, no need to keep searching.
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Checks the memo for a newly generated state. If it has not been visited, it is added to the
+	 * arena; if it is also the win state, the search is over.
+	 * 
+	 * @param newDataVector
+	 *            the data vector of the generated state.
+	 * @param currIndex
+	 *            the arena position of the state that the new state was generated from.
+	 * @return whether the new state is the win state.
+	 */
+	private boolean addStateIfNotVisited(long newDataVector, int currIndex) {
+		// if state hasn't been visited (add fails for visited keys), add it to the queue
+		long key = useSymmetry ? Symmetry.canonicalKey(newDataVector) : newDataVector;
+		if (memo.add(key)) {
+			int newIndex = arena.add(newDataVector, currIndex);
+			if (isWinState(newDataVector)) {
+				// set win state so the search loop ends.
+				System.out.println("Solution Found.");
+				winIndex = newIndex;
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Method that determines if the passed state is in the winning configuration.
 	 * 
@@ -252,6 +567,17 @@ public class SettingSun {
 		return state.getSunPoint().equals(winPoint);
 	}
 
+	/**
+	 * Determines if a data vector is in the winning configuration without creating any objects.
+	 * 
+	 * @param dataVector
+	 *            the data vector to be checked
+	 * @return if the sun piece is in the winning position.
+	 */
+	static boolean isWinState(long dataVector) {
+		return Bitboard.fieldAt(dataVector, State.sunIndex) == WIN_SUN_FIELD;
+	}
+
 	/**
 	 * This method takes a polymorphic pointer to a play piece and updates a state's internal data
 	 * based on the result of moving that piece. Calling this method should update the given state's
@@ -347,16 +673,16 @@ public class SettingSun {
 	 *            the state to load data from.
 	 */
 	private void updatePieceFields(State currState) {
-		sun.setTopLeftPointToValues(currState.getSunPoint());
-		wide.setTopLeftPointToValues(currState.getWidePoint());
-		tall1.setTopLeftPointToValues(currState.getTall1());
-		tall2.setTopLeftPointToValues(currState.getTall2());
-		tall3.setTopLeftPointToValues(currState.getTall3());
-		tall4.setTopLeftPointToValues(currState.getTall4());
-		small1.setTopLeftPointToValues(currState.getSmall1());
-		small2.setTopLeftPointToValues(currState.getSmall2());
-		small3.setTopLeftPointToValues(currState.getSmall3());
-		small4.setTopLeftPointToValues(currState.getSmall4());
+		movePiece(sun, currState.getSunPoint());
+		movePiece(wide, currState.getWidePoint());
+		movePiece(tall1, currState.getTall1());
+		movePiece(tall2, currState.getTall2());
+		movePiece(tall3, currState.getTall3());
+		movePiece(tall4, currState.getTall4());
+		movePiece(small1, currState.getSmall1());
+		movePiece(small2, currState.getSmall2());
+		movePiece(small3, currState.getSmall3());
+		movePiece(small4, currState.getSmall4());
 	}
 
 	/**
@@ -433,11 +759,7 @@ public class SettingSun {
 	 * Doing so will allow finding a solution from any given configuration of the board.
 	 */
 	private void loadStartStateIntoQueue() {
-		State firstState = new State(sun.topLeftPoint, wide.topLeftPoint, tall1.topLeftPoint, tall2.topLeftPoint, tall3.topLeftPoint, tall4.topLeftPoint, small1.topLeftPoint, small2.topLeftPoint, small3.topLeftPoint, small4.topLeftPoint);
-		tempState = new State(firstState, null);
-
-		memo = new TreeSet<Long>();
-		stateQueue.add(firstState);
+		arena.add(getCurrentState().dataVector, SearchArena.NO_PARENT);
 	}
 
 	/**
@@ -527,6 +849,16 @@ public class SettingSun {
 		kb.close();
 	}
 
+	/**
+	 * Moves the piece objects to the configuration of a state, so the next solve starts from it.
+	 * 
+	 * @param state
+	 *            the configuration to start from.
+	 */
+	public void setCurrentState(State state) {
+		updatePieceFields(state);
+	}
+
 	/**
 	 * Added of libgdx to calculate positions
 	 * 
@@ -544,65 +876,49 @@ public class SettingSun {
 	}
 
 	public void setSunPoint(Point pointToSet) {
-		sun.setTopLeftPointToValues(pointToSet);
+		movePiece(sun, pointToSet);
 	}
 
 	public void setWidePoint(Point pointToSet) {
-		wide.setTopLeftPointToValues(pointToSet);
+		movePiece(wide, pointToSet);
 	}
 
 	public void setSmall1Point(Point pointToSet) {
-		small1.setTopLeftPointToValues(pointToSet);
+		movePiece(small1, pointToSet);
 	}
 
 	public void setSmall2Point(Point pointToSet) {
-		small2.setTopLeftPointToValues(pointToSet);
+		movePiece(small2, pointToSet);
 	}
 
 	public void setSmall3Point(Point pointToSet) {
-		small3.setTopLeftPointToValues(pointToSet);
+		movePiece(small3, pointToSet);
 	}
 
 	public void setSmall4Point(Point pointToSet) {
-		small4.setTopLeftPointToValues(pointToSet);
+		movePiece(small4, pointToSet);
 	}
 
 	public void setTall1Point(Point pointToSet) {
-		tall1.setTopLeftPointToValues(pointToSet);
+		movePiece(tall1, pointToSet);
 	}
 
 	public void setTall2Point(Point pointToSet) {
-		tall2.setTopLeftPointToValues(pointToSet);
+		movePiece(tall2, pointToSet);
 	}
 
 	public void setTall3Point(Point pointToSet) {
-		tall3.setTopLeftPointToValues(pointToSet);
+		movePiece(tall3, pointToSet);
 	}
 
 	public void setTall4Point(Point pointToSet) {
-		tall4.setTopLeftPointToValues(pointToSet);
-	}
-
-	private ArrayList<PlayPiece> allPieces = new ArrayList<PlayPiece>();
-	private void addPiecesIfNeeded() {
-		if (allPieces.size() == 0) {
-			allPieces.add(sun);
-			allPieces.add(wide);
-			allPieces.add(small1);
-			allPieces.add(small2);
-			allPieces.add(small3);
-			allPieces.add(small4);
-			allPieces.add(tall1);
-			allPieces.add(tall2);
-			allPieces.add(tall3);
-			allPieces.add(tall4);
-		}
+		movePiece(tall4, pointToSet);
 	}
 
 	/**
-	 * Method that checks if a 1 step point transition is valid
-	 * 
-	 * @untested
+	 * Method that checks if a 1 step point transition is valid. The move is looked up in the
+	 * MoveTable and checked against the cells occupied by the solver's pieces. The piece and the
+	 * occupied cells are read from the occupancy model, so the check takes constant time.
 	 * 
 	 * @param originalPoint
 	 *            the starting position of the point
@@ -611,48 +927,122 @@ public class SettingSun {
 	 * @return whether the point produces a valid transition
 	 */
 	public boolean isValidTransition(Point originalPoint, Point newPoint) {
-		addPiecesIfNeeded(); // decided not to change constructor simply for this method, 
-		boolean result = false;
-
-		// find the piece
-		PlayPiece targetPiece = null;
-		for (PlayPiece piece : allPieces) {
-			if (piece.topLeftPoint.equals(originalPoint)) {
-				targetPiece = piece;
-				break;
-			}
+		if (!isOnBoard(originalPoint)) {
+			return false;
 		}
 
+		// find the piece
+		int cell = Bitboard.cellOf(originalPoint.x, originalPoint.y);
+		PlayPiece targetPiece = pieceAtTopLeft[cell];
 		if (targetPiece == null) {
 			// could not find the piece at the original point
 			return false;
 		}
-		
-		//update the game board for current pieces
-		loadPiecesToBoolBoard(null);//TODO MAY THROW NULL POINTER
-
-		// remove the piece from boolean board
-		removePointsIntoBooleanBoard(targetPiece.getCoordinatePoints(Direction.STAY));
 
-		// assumes no diagonal transitions
+		// assumes no diagonal transitions, and that transitions are only of 1 space
+		Direction direction;
 		if (originalPoint.x != newPoint.x && originalPoint.y == newPoint.y) {
-			// assumes transition is only of 1 space
-			if (originalPoint.x < newPoint.x) {
-				// test if move to right has collisions
-				result = pointsAvailableAndValid(targetPiece.getCoordinatePoints(Direction.RIGHT));
-			} else {
-				result = pointsAvailableAndValid(targetPiece.getCoordinatePoints(Direction.LEFT));
-			}
+			direction = originalPoint.x < newPoint.x ? Direction.RIGHT : Direction.LEFT;
 		} else if (originalPoint.y != newPoint.y && originalPoint.x == newPoint.x) {
-			if (originalPoint.y < newPoint.y) {
-				result = pointsAvailableAndValid(targetPiece.getCoordinatePoints(Direction.DOWN));
-			} else {
-				result = pointsAvailableAndValid(targetPiece.getCoordinatePoints(Direction.UP));
+			direction = originalPoint.y < newPoint.y ? Direction.DOWN : Direction.UP;
+		} else {
+			return false;
+		}
+
+		int entry = MoveTable.entryOf(targetPiece.getShape(), cell, direction.ordinal());
+		return MoveTable.isValid(entry) && (MoveTable.entering(entry) & occupied) == 0;
+	}
+
+	/**
+	 * Calculates where the piece at a point can be dragged to while the other pieces stay in place.
+	 * 
+	 * @param topLeft
+	 *            the top-left point of the dragged piece.
+	 * @param envelope
+	 *            the envelope to fill in.
+	 * @return whether there is a piece at the point (the envelope is unchanged if there is not).
+	 */
+	public boolean computeDragEnvelope(Point topLeft, DragEnvelope envelope) {
+		if (!isOnBoard(topLeft)) {
+			return false;
+		}
+
+		int cell = Bitboard.cellOf(topLeft.x, topLeft.y);
+		PlayPiece piece = pieceAtTopLeft[cell];
+		if (piece == null) {
+			return false;
+		}
+
+		int shape = piece.getShape();
+		envelope.compute(shape, cell, occupied & ~Bitboard.shapeMask(shape, cell));
+		return true;
+	}
+
+	/**
+	 * @return a bitboard with a bit set for every cell covered by the piece objects.
+	 */
+	public int getOccupancy() {
+		return occupied;
+	}
+
+	/**
+	 * Moves a piece object and updates the occupancy model. Every change to a piece's position goes
+	 * through this method, so the model always matches the pieces.
+	 * 
+	 * @param piece
+	 *            the piece to move.
+	 * @param pointToSet
+	 *            the new top-left point of the piece.
+	 */
+	private void movePiece(PlayPiece piece, Point pointToSet) {
+		removeFromOccupancy(piece);
+		piece.setTopLeftPointToValues(pointToSet);
+		addToOccupancy(piece);
+	}
+
+	private void addToOccupancy(PlayPiece piece) {
+		if (!isOnBoard(piece.topLeftPoint)) {
+			return;
+		}
+
+		int cell = Bitboard.cellOf(piece.topLeftPoint.x, piece.topLeftPoint.y);
+		pieceAtTopLeft[cell] = piece;
+		for (int mask = Bitboard.shapeMask(piece.getShape(), cell); mask != 0; mask &= mask - 1) {
+			int covered = Integer.numberOfTrailingZeros(mask);
+			coverCounts[covered]++;
+			occupied |= 1 << covered;
+		}
+	}
+
+	private void removeFromOccupancy(PlayPiece piece) {
+		if (!isOnBoard(piece.topLeftPoint)) {
+			return;
+		}
+
+		int cell = Bitboard.cellOf(piece.topLeftPoint.x, piece.topLeftPoint.y);
+		for (int mask = Bitboard.shapeMask(piece.getShape(), cell); mask != 0; mask &= mask - 1) {
+			int covered = Integer.numberOfTrailingZeros(mask);
+			if (--coverCounts[covered] == 0) {
+				occupied &= ~(1 << covered);
+			}
+		}
+
+		if (pieceAtTopLeft[cell] == piece) {
+			pieceAtTopLeft[cell] = null;
+
+			// only overlapping pieces (e.g. while the GUI is in free mode) can share a top-left cell
+			if (coverCounts[cell] != 0) {
+				for (PlayPiece other : pieces) {
+					if (other != piece && other.topLeftPoint.x == piece.topLeftPoint.x && other.topLeftPoint.y == piece.topLeftPoint.y) {
+						pieceAtTopLeft[cell] = other;
+						break;
+					}
+				}
 			}
 		}
+	}
 
-		// restore boolean board
-		loadPointsIntoBooleanBoard(targetPiece.getCoordinatePoints(Direction.STAY));
-		return result;
+	private static boolean isOnBoard(Point point) {
+		return point.x >= 0 && point.x < Bitboard.COLUMNS && point.y >= 0 && point.y < Bitboard.ROWS;
 	}
 }
@@ -36,4 +36,9 @@ public class SmallPiece extends PlayPiece {
 		representsPoints.get(0).setXY(this.topLeftPoint.x, this.topLeftPoint.y);
 		return representsPoints;
 	}
+
+	@Override
+	public int getShape() {
+		return Bitboard.SHAPE_SMALL;
+	}
 }
@@ -0,0 +1,222 @@
+package enigma.engine;
+
+/**
+ * A compact solution: the data vector of the start state and one byte per move.
+ *
+ * A solution returned by the searches is a linked list of State objects, one object per step.
+ * Every state of a solution can be rebuilt by replaying the moves from the start state, so this
+ * class only stores the moves, each packed into a byte: the data vector index of the moved piece
+ * (4 bits) and the direction it moved (2 bits), as produced by MoveGenerator.moveOf. The solution
+ * of the default start state takes 112 bytes plus 29 checkpoints, instead of 113 State objects.
+ *
+ * States are only materialized when they are asked for. To make any step quick to reach, the data
+ * vector after every CHECKPOINT_INTERVAL moves is kept, so getting a step replays fewer than
+ * CHECKPOINT_INTERVAL moves no matter how long the solution is. A checkpoint every 4 moves costs
+ * two more bytes per move in memory (checkpoints are not part of toBytes), and makes getting a
+ * step about as quick as walking a linked list to it on short solutions and much quicker on long
+ * ones.
+ *
+ * Solutions are converted to bytes (toBytes) to be cached, stored and sent; the format is the start
+ * state's data vector (8 bytes, most significant first) followed by the moves. Objects of this
+ * class never change, so they may be shared between threads.
+ */
+public class Solution {
+	public static final int CHECKPOINT_INTERVAL = 4;
+	private static final int KEY_BYTES = 8;
+
+	private final long startKey;
+	private final byte[] moves;
+
+	// [i] -> the data vector after i * CHECKPOINT_INTERVAL moves
+	private final long[] checkpoints;
+
+	/**
+	 * Constructor for a solution from its moves. The array is kept, not copied.
+	 */
+	private Solution(long startKey, byte[] moves) {
+		this.startKey = startKey;
+		this.moves = moves;
+		this.checkpoints = new long[moves.length / CHECKPOINT_INTERVAL + 1];
+
+		long dataVector = startKey;
+		checkpoints[0] = dataVector;
+		for (int step = 1; step <= moves.length; ++step) {
+			dataVector = MoveGenerator.applyMove(dataVector, moves[step - 1]);
+			if (step % CHECKPOINT_INTERVAL == 0) {
+				checkpoints[step / CHECKPOINT_INTERVAL] = dataVector;
+			}
+		}
+	}
+
+	/**
+	 * Converts a solution returned by a search.
+	 *
+	 * @param solution
+	 *            a linked list of states from the start state to a winning state.
+	 * @return the compact form of the solution.
+	 * @throws IllegalArgumentException
+	 *             if two neighbouring states are not a single move apart.
+	 */
+	public static Solution fromStates(State solution) {
+		int length = 0;
+		for (State iter = solution; iter.linkedNode != null; iter = iter.linkedNode) {
+			length++;
+		}
+
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		int[] successorMoves = new int[MoveGenerator.MAX_SUCCESSORS];
+		byte[] moves = new byte[length];
+		int i = 0;
+		for (State iter = solution; iter.linkedNode != null; iter = iter.linkedNode) {
+			int count = generator.generate(iter.dataVector, successors, successorMoves);
+			int j = 0;
+			while (j < count && successors[j] != iter.linkedNode.dataVector) {
+				j++;
+			}
+			if (j == count) {
+				throw new IllegalArgumentException("solution contains an illegal move");
+			}
+			moves[i++] = (byte) successorMoves[j];
+		}
+		return new Solution(solution.dataVector, moves);
+	}
+
+	/**
+	 * Reads a solution written by toBytes. Every move is checked, so a damaged solution (e.g. a
+	 * partially written file) is rejected instead of producing illegal states.
+	 *
+	 * @param bytes
+	 *            the bytes of a solution.
+	 * @return the solution.
+	 * @throws IllegalArgumentException
+	 *             if the bytes are not a legal solution.
+	 */
+	public static Solution fromBytes(byte[] bytes) {
+		if (bytes.length < KEY_BYTES) {
+			throw new IllegalArgumentException("solution is too short");
+		}
+
+		long startKey = 0;
+		for (int i = 0; i < KEY_BYTES; ++i) {
+			startKey = (startKey << 8) | (bytes[i] & 0xFF);
+		}
+		byte[] moves = new byte[bytes.length - KEY_BYTES];
+		System.arraycopy(bytes, KEY_BYTES, moves, 0, moves.length);
+
+		checkMoves(startKey, moves);
+		return new Solution(startKey, moves);
+	}
+
+	/**
+	 * @return the bytes of the solution (see the class description for the format).
+	 */
+	public byte[] toBytes() {
+		byte[] bytes = new byte[KEY_BYTES + moves.length];
+		for (int i = 0; i < KEY_BYTES; ++i) {
+			bytes[i] = (byte) (startKey >>> (8 * (KEY_BYTES - 1 - i)));
+		}
+		System.arraycopy(moves, 0, bytes, KEY_BYTES, moves.length);
+		return bytes;
+	}
+
+	/**
+	 * @return the canonical data vector of the start state.
+	 */
+	public long getStartKey() {
+		return startKey;
+	}
+
+	/**
+	 * @return the number of moves in the solution (one less than the number of states).
+	 */
+	public int getLength() {
+		return moves.length;
+	}
+
+	/**
+	 * @param step
+	 *            the number of a move, from 0 to getLength() - 1.
+	 * @return the packed move (see MoveGenerator.moveOf) from state step to state step + 1.
+	 */
+	public int getMove(int step) {
+		return moves[step];
+	}
+
+	/**
+	 * Rebuilds the data vector of a state of the solution, replaying at most CHECKPOINT_INTERVAL - 1
+	 * moves.
+	 *
+	 * @param step
+	 *            the number of the state, from 0 (the start) to getLength() (the winning state).
+	 * @return the data vector of the state.
+	 */
+	public long getDataVector(int step) {
+		if (step < 0 || step > moves.length) {
+			throw new IndexOutOfBoundsException("step " + step + " of a solution with " + moves.length + " moves");
+		}
+
+		long dataVector = checkpoints[step / CHECKPOINT_INTERVAL];
+		for (int i = step - step % CHECKPOINT_INTERVAL; i < step; ++i) {
+			dataVector = MoveGenerator.applyMove(dataVector, moves[i]);
+		}
+		return dataVector;
+	}
+
+	/**
+	 * @param step
+	 *            the number of the state, from 0 (the start) to getLength() (the winning state).
+	 * @return a new state (not linked to any other state).
+	 */
+	public State getState(int step) {
+		return new State(getDataVector(step), null);
+	}
+
+	/**
+	 * Materializes every state of the solution.
+	 *
+	 * @return a linked list of states from the start state to the winning state (in the same form as
+	 *         SettingSun.solvePuzzle).
+	 */
+	public State toStates() {
+		State first = new State(startKey, null);
+		State last = first;
+		long dataVector = startKey;
+		for (byte move : moves) {
+			dataVector = MoveGenerator.applyMove(dataVector, move);
+			last.linkedNode = new State(dataVector, null);
+			last = last.linkedNode;
+		}
+		return first;
+	}
+
+	/**
+	 * Checks that every move is legal in the state it is applied to, and that the last state wins.
+	 * The start is checked with Bitboard.isLegal rather than StateIndex, so reading a solution does
+	 * not build the index of every configuration.
+	 */
+	private static void checkMoves(long startKey, byte[] moves) {
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		int[] successorMoves = new int[MoveGenerator.MAX_SUCCESSORS];
+
+		if (!Bitboard.isLegal(startKey)) {
+			throw new IllegalArgumentException("solution starts in an illegal configuration");
+		}
+		long dataVector = startKey;
+		for (byte move : moves) {
+			int count = generator.generate(dataVector, successors, successorMoves);
+			int j = 0;
+			while (j < count && successorMoves[j] != move) {
+				j++;
+			}
+			if (j == count) {
+				throw new IllegalArgumentException("solution contains an illegal move");
+			}
+			dataVector = successors[j];
+		}
+		if (!SettingSun.isWinState(dataVector)) {
+			throw new IllegalArgumentException("solution does not end in a winning state");
+		}
+	}
+}
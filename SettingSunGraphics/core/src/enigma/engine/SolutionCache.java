@@ -0,0 +1,148 @@
+package enigma.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A two tier cache of solutions, keyed by the canonical data vector of the start state.
+ *
+ * Most solve requests are for a few popular configurations (e.g. the start of the game), so a
+ * solution found once should not be searched for again. The first tier is a bounded map held in
+ * memory, which drops the least recently used solution when it is full. The second tier is an
+ * optional SolutionStore (e.g. a directory on desktop) that keeps solutions between runs; a
+ * solution found in the store is also added to the first tier.
+ *
+ * Solutions are cached in their compact form (see Solution), about one byte per move, instead of
+ * as linked lists of states.
+ *
+ * Only solutions are cached; a start state without a solution is searched every time.
+ *
+ * The cache's map and counters are not synchronized, so each solver uses its own cache.
+ */
+public class SolutionCache {
+	private final LinkedHashMap<Long, Solution> memory;
+	private final SolutionStore store;
+
+	private int hitCount = 0;
+	private int storeHitCount = 0;
+	private int missCount = 0;
+	private int evictionCount = 0;
+
+	/**
+	 * Constructor for a cache that is only held in memory.
+	 *
+	 * @param capacity
+	 *            the number of solutions kept in memory.
+	 */
+	public SolutionCache(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Constructor for a cache backed by a store.
+	 *
+	 * @param capacity
+	 *            the number of solutions kept in memory.
+	 * @param store
+	 *            the store used when a solution is not in memory, may be null.
+	 */
+	public SolutionCache(final int capacity, SolutionStore store) {
+		this.store = store;
+
+		// access order, so the eldest entry is the least recently used
+		this.memory = new LinkedHashMap<Long, Solution>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Solution> eldest) {
+				if (size() > capacity) {
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Looks up the solution of a start state, first in memory and then in the store.
+	 *
+	 * @param startKey
+	 *            the canonical data vector of the start state.
+	 * @return the solution, or null if the solution is not cached.
+	 */
+	public Solution get(long startKey) {
+		Solution solution = memory.get(startKey);
+		if (solution != null) {
+			hitCount++;
+			return solution;
+		}
+
+		if (store != null) {
+			solution = store.load(startKey);
+			if (solution != null) {
+				storeHitCount++;
+				memory.put(startKey, solution);
+				return solution;
+			}
+		}
+
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * Adds a solution to the cache (and to the store, if there is one).
+	 *
+	 * @param solution
+	 *            the solution, cached under its start key.
+	 */
+	public void put(Solution solution) {
+		memory.put(solution.getStartKey(), solution);
+		if (store != null) {
+			store.save(solution);
+		}
+	}
+
+	/**
+	 * Removes every solution held in memory. Solutions in the store are kept.
+	 */
+	public void clear() {
+		memory.clear();
+	}
+
+	/**
+	 * @return the number of solutions held in memory.
+	 */
+	public int size() {
+		return memory.size();
+	}
+
+	/**
+	 * @return the number of look ups answered from memory.
+	 */
+	public int getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of look ups answered from the store.
+	 */
+	public int getStoreHitCount() {
+		return storeHitCount;
+	}
+
+	/**
+	 * @return the number of look ups that found no solution.
+	 */
+	public int getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return the number of solutions dropped from memory to make room for newer ones.
+	 */
+	public int getEvictionCount() {
+		return evictionCount;
+	}
+}
@@ -0,0 +1,30 @@
+package enigma.engine;
+
+/**
+ * A place to keep solutions between runs of the game, used as the second tier of a SolutionCache.
+ *
+ * Solutions are stored in their compact form (see Solution.toBytes) under the canonical data vector
+ * of their start state. The core project is also compiled for the HTML backend, so implementations
+ * that use files (or anything else a backend does not support) belong in the backend's project and
+ * are passed to the game when it is created.
+ */
+public interface SolutionStore {
+
+	/**
+	 * Looks up a solution.
+	 *
+	 * @param startKey
+	 *            the canonical data vector of the start state.
+	 * @return the solution, or null if no (readable) solution is stored for the start state.
+	 */
+	Solution load(long startKey);
+
+	/**
+	 * Stores a solution. Failures are expected to be handled by the store (a solution that can not
+	 * be stored is simply searched for again next time).
+	 *
+	 * @param solution
+	 *            the solution, stored under its start key.
+	 */
+	void save(Solution solution);
+}
@@ -0,0 +1,96 @@
+package enigma.engine;
+
+/**
+ * The steps of a solution laid out in an array, so the GUI can jump to any step.
+ *
+ * Stepping through a linked list of states means that reaching step 40 takes 40 steps, and showing
+ * each of them positions every piece. The timeline materializes the data vector of every step of a
+ * Solution once, and keeps track of the step being shown. Seeking to another step is a single array
+ * access, and returns which pieces (data vector indices) are somewhere else at the new step, so
+ * only those pieces need to be moved on screen.
+ */
+public class SolutionTimeline {
+	private final Solution solution;
+	private final long[] dataVectors;
+	private int step = 0;
+
+	/**
+	 * Constructor for a timeline at the first step (the start state) of a solution.
+	 *
+	 * @param solution
+	 *            the solution to step through.
+	 */
+	public SolutionTimeline(Solution solution) {
+		this.solution = solution;
+		this.dataVectors = new long[solution.getLength() + 1];
+		dataVectors[0] = solution.getStartKey();
+		for (int i = 1; i < dataVectors.length; ++i) {
+			dataVectors[i] = MoveGenerator.applyMove(dataVectors[i - 1], solution.getMove(i - 1));
+		}
+	}
+
+	/**
+	 * @return the solution of this timeline.
+	 */
+	public Solution getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the step being shown, from 0 (the start state) to getLastStep() (the winning state).
+	 */
+	public int getStep() {
+		return step;
+	}
+
+	/**
+	 * @return the number of the last step (the number of moves in the solution).
+	 */
+	public int getLastStep() {
+		return dataVectors.length - 1;
+	}
+
+	/**
+	 * @param step
+	 *            a step from 0 to getLastStep().
+	 * @return the data vector of the step.
+	 */
+	public long getDataVector(int step) {
+		return dataVectors[step];
+	}
+
+	/**
+	 * Moves to another step. Steps outside the timeline are clamped to the first or last step.
+	 *
+	 * @param target
+	 *            the step to move to.
+	 * @return a mask with bit i set if the piece at data vector index i is somewhere else at the new
+	 *         step (0 if nothing changed).
+	 */
+	public int seek(int target) {
+		target = Math.max(0, Math.min(target, getLastStep()));
+		int changed = changedIndices(dataVectors[step], dataVectors[target]);
+		step = target;
+		return changed;
+	}
+
+	/**
+	 * Compares two data vectors field by field.
+	 *
+	 * @param first
+	 *            a data vector.
+	 * @param second
+	 *            another data vector.
+	 * @return a mask with bit i set if the fields at index i are different.
+	 */
+	public static int changedIndices(long first, long second) {
+		long difference = first ^ second;
+		int changed = 0;
+		for (int index = 0; difference != 0; ++index, difference >>>= 6) {
+			if ((difference & 63) != 0) {
+				changed |= 1 << index;
+			}
+		}
+		return changed;
+	}
+}
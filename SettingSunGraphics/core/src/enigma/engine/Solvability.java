@@ -0,0 +1,80 @@
+package enigma.engine;
+
+/**
+ * What is known about a start state before solving it, as returned by SettingSun.checkSolvability.
+ *
+ * The status is looked up in the ComponentIndex, so an unsolvable start is recognized without a
+ * search. For a solvable start, the number of states reachable from it (the size of its component)
+ * and the number of moves needed to win (from the DistanceTable) are also known.
+ */
+public class Solvability {
+
+	/**
+	 * Whether a start state can be solved.
+	 */
+	public enum Status {
+		// a winning state can be reached
+		SOLVABLE,
+		// the state is legal, but no winning state can be reached from it
+		UNSOLVABLE,
+		// pieces overlap or are off the board
+		ILLEGAL
+	}
+
+	private final Status status;
+	private final int componentSize;
+	private final int goalDistance;
+
+	/**
+	 * Constructor for the result of a start state.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of the start state.
+	 */
+	Solvability(long dataVector) {
+		int component = ComponentIndex.componentOf(dataVector);
+		if (component < 0) {
+			status = Status.ILLEGAL;
+			componentSize = 0;
+			goalDistance = DistanceTable.UNSOLVABLE;
+		} else if (!ComponentIndex.isComponentSolvable(component)) {
+			status = Status.UNSOLVABLE;
+			componentSize = ComponentIndex.componentSize(component);
+			goalDistance = DistanceTable.UNSOLVABLE;
+		} else {
+			status = Status.SOLVABLE;
+			componentSize = ComponentIndex.componentSize(component);
+			goalDistance = DistanceTable.distanceOf(dataVector);
+		}
+	}
+
+	/**
+	 * @return whether the start state can be solved.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return whether the start state can be solved.
+	 */
+	public boolean isSolvable() {
+		return status == Status.SOLVABLE;
+	}
+
+	/**
+	 * @return the number of states that can be reached from the start state (including itself), or
+	 *         0 if the start state is illegal.
+	 */
+	public int getComponentSize() {
+		return componentSize;
+	}
+
+	/**
+	 * @return the number of moves needed to win, or DistanceTable.UNSOLVABLE if the start state can
+	 *         not be solved.
+	 */
+	public int getGoalDistance() {
+		return goalDistance;
+	}
+}
@@ -0,0 +1,19 @@
+package enigma.engine;
+
+/**
+ * Runs solves away from the render thread (see BackgroundSolve).
+ *
+ * The core project is also compiled for the HTML backend, which has no threads, so the games only
+ * use an executor when a backend passes one in (the desktop launcher does). Without one, the games
+ * spread a solve over frames with a SteppedSolver instead.
+ */
+public interface SolveExecutor {
+
+	/**
+	 * Runs a task on another thread.
+	 *
+	 * @param task
+	 *            the task to run.
+	 */
+	void execute(Runnable task);
+}
@@ -0,0 +1,87 @@
+package enigma.engine;
+
+/**
+ * The result of a solve that may be stopped before it finishes (see SettingSun.solvePuzzle(long,
+ * int, CancellationToken)).
+ *
+ * Besides the solution (if one was found), the result holds how far the search got. The search is
+ * breadth first, so when it stops early every solution is known to need at least as many moves as
+ * the depth the search reached.
+ */
+public class SolveResult {
+
+	/**
+	 * How a solve ended.
+	 */
+	public enum Status {
+		// a solution was found
+		SOLVED,
+		// the start state can not reach the goal
+		UNSOLVABLE,
+		// the deadline passed or the maximum number of states was expanded
+		BUDGET_EXHAUSTED,
+		// the cancellation token was cancelled
+		CANCELLED
+	}
+
+	private final Status status;
+	private final State solution;
+	private final int expandedCount;
+	private final int foundCount;
+	private final int depthReached;
+	private final long elapsedMillis;
+
+	SolveResult(Status status, State solution, int expandedCount, int foundCount, int depthReached, long elapsedMillis) {
+		this.status = status;
+		this.solution = solution;
+		this.expandedCount = expandedCount;
+		this.foundCount = foundCount;
+		this.depthReached = depthReached;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * @return how the solve ended.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return a linked list of states from the start state to a winning state, or null if the
+	 *         status is not SOLVED.
+	 */
+	public State getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the number of states expanded (0 if the solution came from a cache or the start was
+	 *         rejected without searching).
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return the number of distinct states found by the search, including those not expanded yet.
+	 */
+	public int getFoundCount() {
+		return foundCount;
+	}
+
+	/**
+	 * @return the number of moves from the start state to the last state expanded. If the search was
+	 *         stopped, every solution needs at least this many moves.
+	 */
+	public int getDepthReached() {
+		return depthReached;
+	}
+
+	/**
+	 * @return the time the solve took, in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+}
@@ -1,8 +1,6 @@
 package enigma.engine;
 
 
-import java.util.ArrayList;
-
 /**
  * Class that represents a configuration of the game board.
  * 
@@ -20,20 +18,16 @@ import java.util.ArrayList;
  */
 public class State {
 	// Static fields used in extracting values from the bit vector
-	public static int sunIndex = 9;
-	public static int wideIndex = 8;
-	public static int tall1Index = 7;
-	public static int tall2Index = 6;
-	public static int tall3Index = 5;
-	public static int tall4Index = 4;
-	public static int small1Index = 3;
-	public static int small2Index = 2;
-	public static int small3Index = 1;
-	public static int small4Index = 0;
-
-	// static helper points to prevent object creation for every generation of state
-	private static ArrayList<Point> sortHelperPoints;
-	private static PointCompare comparer = new PointCompare();
+	public static final int sunIndex = 9;
+	public static final int wideIndex = 8;
+	public static final int tall1Index = 7;
+	public static final int tall2Index = 6;
+	public static final int tall3Index = 5;
+	public static final int tall4Index = 4;
+	public static final int small1Index = 3;
+	public static final int small2Index = 2;
+	public static final int small3Index = 1;
+	public static final int small4Index = 0;
 
 	// The data vector
 	long dataVector = 0;
@@ -69,6 +63,9 @@ public class State {
 		storePointInDataVector(smallPoint3); // 1
 		storePointInDataVector(smallPoint4); // 0
 
+		// store pieces of the same type in sorted order so that the data vector is canonical
+		dataVector = sortFields(dataVector, State.tall4Index);
+		dataVector = sortFields(dataVector, State.small4Index);
 	}
 
 	/**
@@ -87,6 +84,19 @@ public class State {
 		this.dataVector = other.dataVector;
 	}
 
+	/**
+	 * Constructor for a state that already has a data vector, e.g. one generated by the solver.
+	 * 
+	 * @param dataVector
+	 *            the data vector of the state.
+	 * @param stateToLink
+	 *            the state that should be linked.
+	 */
+	State(long dataVector, State stateToLink) {
+		this.linkedNode = stateToLink;
+		this.dataVector = dataVector;
+	}
+
 	/**
 	 * Pure copy constructor with shallow copy on reference to the last node.
 	 * 
@@ -257,6 +267,20 @@ public class State {
 	 *            the point containing the data to store.
 	 */
 	private void storePointInDataVectorAt(int index, Point toStore) {
+		storeValuesInDataVectorAt(index, toStore.x, toStore.y);
+	}
+
+	/**
+	 * Stores an x and y value at a specified index without needing a point object.
+	 * 
+	 * @param index
+	 *            the index where the data should be stored.
+	 * @param x
+	 *            the column value to store.
+	 * @param y
+	 *            the row value to store.
+	 */
+	private void storeValuesInDataVectorAt(int index, int x, int y) {
 		// clear location in data vector
 		long mask = 63; // 0b0111111 (6 ones)
 		mask <<= 6 * index; // position mask
@@ -265,13 +289,73 @@ public class State {
 
 		// convert point into bits
 		long toMerge = 0;
-		toMerge = toStore.x; // note x and y are at most 3 bits of data
+		toMerge = x; // note x and y are at most 3 bits of data
 		toMerge <<= 3;
-		toMerge |= toStore.y;
+		toMerge |= y;
 		toMerge <<= 6 * index; // position value to be stored
 		dataVector |= toMerge; // load value into data vector
 	}
 
+	/**
+	 * Moves the piece stored at an index to a new location. Pieces of the same type are re-sorted
+	 * afterwards, exactly like the named setters (e.g. setTall1Point) do.
+	 * 
+	 * This is used by the solver, which identifies pieces by their index in the data vector.
+	 * 
+	 * @param index
+	 *            the index of the piece to move.
+	 * @param x
+	 *            the new column of the piece's top-left coordinate.
+	 * @param y
+	 *            the new row of the piece's top-left coordinate.
+	 */
+	void setPointAtIndex(int index, int x, int y) {
+		storeValuesInDataVectorAt(index, x, y);
+		if (index >= State.tall4Index && index <= State.tall1Index) {
+			restoreOrder(index, State.tall4Index, State.tall1Index);
+		} else if (index >= State.small4Index && index <= State.small1Index) {
+			restoreOrder(index, State.small4Index, State.small1Index);
+		}
+	}
+
+	/**
+	 * Moves the value at an index back into sorted order after it was changed. The other values of
+	 * the same type are expected to already be sorted (which is true for any state created by this
+	 * class), so the changed value only needs to be swapped with its neighbors until it is in
+	 * place. The highest index of a type holds the smallest value, the same order as sortFields.
+	 * 
+	 * This only swaps values that are out of place, so it is cheaper than sorting the whole type
+	 * when a single value has changed.
+	 * 
+	 * @param index
+	 *            the index that was changed.
+	 * @param lowIndex
+	 *            the lowest index of the piece type.
+	 * @param highIndex
+	 *            the highest index of the piece type.
+	 */
+	private void restoreOrder(int index, int lowIndex, int highIndex) {
+		while (index < highIndex && fieldAt(index) < fieldAt(index + 1)) {
+			swapFields(index, index + 1);
+			index++;
+		}
+		while (index > lowIndex && fieldAt(index) > fieldAt(index - 1)) {
+			swapFields(index, index - 1);
+			index--;
+		}
+	}
+
+	private long fieldAt(int index) {
+		return (dataVector >>> (6 * index)) & 63;
+	}
+
+	private void swapFields(int first, int second) {
+		long firstValue = fieldAt(first);
+		long secondValue = fieldAt(second);
+		long cleared = dataVector & ~((63L << (6 * first)) | (63L << (6 * second)));
+		dataVector = cleared | (firstValue << (6 * second)) | (secondValue << (6 * first));
+	}
+
 	/**
 	 * Updates the data vector with data representing the new location of the Sun point.
 	 * 
@@ -300,7 +384,7 @@ public class State {
 	 */
 	public void setTall1Point(Point newPoint) {
 		storePointInDataVectorAt(State.tall1Index, newPoint);
-		sortIndices(State.tall1Index, State.tall2Index, State.tall3Index, State.tall4Index);
+		dataVector = sortFields(dataVector, State.tall4Index);
 	}
 
 	/**
@@ -311,7 +395,7 @@ public class State {
 	 */
 	public void setTall2Point(Point newPoint) {
 		storePointInDataVectorAt(State.tall2Index, newPoint);
-		sortIndices(State.tall1Index, State.tall2Index, State.tall3Index, State.tall4Index);
+		dataVector = sortFields(dataVector, State.tall4Index);
 
 	}
 
@@ -323,7 +407,7 @@ public class State {
 	 */
 	public void setTall3Point(Point newPoint) {
 		storePointInDataVectorAt(State.tall3Index, newPoint);
-		sortIndices(State.tall1Index, State.tall2Index, State.tall3Index, State.tall4Index);
+		dataVector = sortFields(dataVector, State.tall4Index);
 
 	}
 
@@ -335,7 +419,7 @@ public class State {
 	 */
 	public void setTall4Point(Point newPoint) {
 		storePointInDataVectorAt(State.tall4Index, newPoint);
-		sortIndices(State.tall1Index, State.tall2Index, State.tall3Index, State.tall4Index);
+		dataVector = sortFields(dataVector, State.tall4Index);
 
 	}
 
@@ -347,7 +431,7 @@ public class State {
 	 */
 	public void setSmall1Point(Point newPoint) {
 		storePointInDataVectorAt(State.small1Index, newPoint);
-		sortIndices(State.small1Index, State.small2Index, State.small3Index, State.small4Index);
+		dataVector = sortFields(dataVector, State.small4Index);
 
 	}
 
@@ -359,7 +443,7 @@ public class State {
 	 */
 	public void setSmall2Point(Point newPoint) {
 		storePointInDataVectorAt(State.small2Index, newPoint);
-		sortIndices(State.small1Index, State.small2Index, State.small3Index, State.small4Index);
+		dataVector = sortFields(dataVector, State.small4Index);
 
 	}
 
@@ -371,7 +455,7 @@ public class State {
 	 */
 	public void setSmall3Point(Point newPoint) {
 		storePointInDataVectorAt(State.small3Index, newPoint);
-		sortIndices(State.small1Index, State.small2Index, State.small3Index, State.small4Index);
+		dataVector = sortFields(dataVector, State.small4Index);
 
 	}
 
@@ -383,50 +467,66 @@ public class State {
 	 */
 	public void setSmall4Point(Point newPoint) {
 		storePointInDataVectorAt(State.small4Index, newPoint);
-		sortIndices(State.small1Index, State.small2Index, State.small3Index, State.small4Index);
+		dataVector = sortFields(dataVector, State.small4Index);
 
 	}
 
 	/**
-	 * A method that takes in 4 indices for the data vector and sorts them as defined in the
-	 * PointCompare class.
-	 * 
-	 * The sorting works first by x value, then by y value if the x values are the same.
+	 * Sorts the 4 values of a piece type in place inside a data vector, in the order defined by the
+	 * PointCompare class: first by x value, then by y value if the x values are the same. The
+	 * highest index of the type holds the smallest value.
 	 * 
 	 * This is used to ensure that all permutations of the same state are stored in the same vector.
 	 * 
-	 * @param first
-	 *            index
-	 * @param second
-	 *            index
-	 * @param third
-	 *            index
-	 * @param fourth
-	 *            index
-	 */
-	private void sortIndices(int first, int second, int third, int fourth) {
-		// single time static initialization
-		if (State.sortHelperPoints == null) {
-			sortHelperPoints = new ArrayList<Point>();
-			for (int i = 0; i < 4; ++i) {
-				sortHelperPoints.add(new Point(0, 0));
-			}
-		}
-
-		// uses global static point variables to prevent repeated object creation
-		getPointAtIndex(first, State.sortHelperPoints.get(0));
-		getPointAtIndex(second, State.sortHelperPoints.get(1));
-		getPointAtIndex(third, State.sortHelperPoints.get(2));
-		getPointAtIndex(fourth, State.sortHelperPoints.get(3));
-
-		// sort the points
-		sortHelperPoints.sort(comparer);
-
-		// right the data back to the indices in sorted order
-		storePointInDataVectorAt(first, sortHelperPoints.get(0));
-		storePointInDataVectorAt(second, sortHelperPoints.get(1));
-		storePointInDataVectorAt(third, sortHelperPoints.get(2));
-		storePointInDataVectorAt(fourth, sortHelperPoints.get(3));
+	 * Since y is stored in the low 3 bits of a value, comparing the packed 6 bit values gives the
+	 * same order as PointCompare. The values are sorted with a fixed network of 5 compare-exchanges,
+	 * each done with arithmetic instead of branches, so no objects are created and the data vectors
+	 * are the same as the ones produced by the original sort of Point objects.
+	 * 
+	 * @param dataVector
+	 *            the data vector to sort.
+	 * @param lowIndex
+	 *            the lowest index of the piece type (tall4Index or small4Index).
+	 * @return the data vector with the piece type sorted.
+	 */
+	static long sortFields(long dataVector, int lowIndex) {
+		int shift = 6 * lowIndex;
+		int group = (int) (dataVector >>> shift) & 0xFFFFFF;
+
+		// a is the value that ends up at the highest index (the smallest value)
+		int a = group >>> 18;
+		int b = (group >>> 12) & 63;
+		int c = (group >>> 6) & 63;
+		int d = group & 63;
+
+		// sorting network for 4 values: (a,b) (c,d) (a,c) (b,d) (b,c)
+		int diff = a - b;
+		int lower = diff & (diff >> 31); // min(a,b) - b
+		a = b + lower;
+		b = b + diff - lower;
+
+		diff = c - d;
+		lower = diff & (diff >> 31);
+		c = d + lower;
+		d = d + diff - lower;
+
+		diff = a - c;
+		lower = diff & (diff >> 31);
+		a = c + lower;
+		c = c + diff - lower;
+
+		diff = b - d;
+		lower = diff & (diff >> 31);
+		b = d + lower;
+		d = d + diff - lower;
+
+		diff = b - c;
+		lower = diff & (diff >> 31);
+		b = c + lower;
+		c = c + diff - lower;
+
+		group = (a << 18) | (b << 12) | (c << 6) | d;
+		return (dataVector & ~(0xFFFFFFL << shift)) | ((long) group << shift);
 	}
 
 }
@@ -0,0 +1,171 @@
+package enigma.engine;
+
+import java.util.Arrays;
+
+/**
+ * Maps every legal configuration of the board to a dense int rank in the range [0, size()), and
+ * back again.
+ *
+ * A data vector uses 60 bits, but only a small number of those values are legal configurations.
+ * Pieces of the same type are interchangeable, and the data vector already accounts for that by
+ * sorting them (see PointCompare), so every legal placement has exactly one canonical data vector.
+ * This class enumerates all of the canonical data vectors once: the sun, then the wide piece, then
+ * every set of 4 non-overlapping tall pieces, then every set of 4 small pieces among the 6 cells
+ * left (leaving the 2 empty cells). This finds 65,880 configurations, of which 25,955 can be
+ * reached from the start state (the size of its component in the ComponentIndex). The data vectors
+ * are kept in a sorted array, so the rank of a state is its position in that array (found with a
+ * binary search).
+ *
+ * With dense ranks, anything that is stored per state (visited flags, distances, parents) can be a
+ * plain array indexed by rank instead of a hashed structure.
+ */
+public class StateIndex {
+	// sorted canonical data vectors of every legal configuration; a rank is an index in this array
+	private static final long[] DATA_VECTORS = enumerateLegalStates();
+
+	/**
+	 * @return the number of legal configurations (every rank is smaller than this).
+	 */
+	public static int size() {
+		return DATA_VECTORS.length;
+	}
+
+	/**
+	 * Finds the rank of a configuration.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of a state.
+	 * @return the rank of the state, or -1 if the data vector is not a legal canonical
+	 *         configuration.
+	 */
+	public static int rankOf(long dataVector) {
+		int rank = Arrays.binarySearch(DATA_VECTORS, dataVector);
+		return rank >= 0 ? rank : -1;
+	}
+
+	/**
+	 * Finds the configuration for a rank.
+	 *
+	 * @param rank
+	 *            a rank in the range [0, size())
+	 * @return the canonical data vector of the configuration.
+	 */
+	public static long dataVectorOf(int rank) {
+		return DATA_VECTORS[rank];
+	}
+
+	private static long[] enumerateLegalStates() {
+		Enumeration enumeration = new Enumeration();
+		for (int sunCell = 0; sunCell < Bitboard.CELL_COUNT; ++sunCell) {
+			int sunMask = Bitboard.shapeMask(Bitboard.SHAPE_SUN, sunCell);
+			if (sunMask == 0) {
+				continue;
+			}
+			for (int wideCell = 0; wideCell < Bitboard.CELL_COUNT; ++wideCell) {
+				int wideMask = Bitboard.shapeMask(Bitboard.SHAPE_WIDE, wideCell);
+				if (wideMask != 0 && (wideMask & sunMask) == 0) {
+					enumeration.sunCell = sunCell;
+					enumeration.wideCell = wideCell;
+					enumeration.placeTallPieces(0, 0, sunMask | wideMask);
+				}
+			}
+		}
+
+		long[] dataVectors = Arrays.copyOf(enumeration.found, enumeration.count);
+		Arrays.sort(dataVectors);
+		return dataVectors;
+	}
+
+	/**
+	 * Holds the data of the enumeration while pieces are being placed.
+	 */
+	private static class Enumeration {
+		long[] found = new long[1 << 17];
+		int count = 0;
+		int sunCell;
+		int wideCell;
+		int[] tallCells = new int[4];
+		int[] freeCells = new int[6];
+		int[] smallCells = new int[4];
+
+		/**
+		 * Places the remaining tall pieces. Each tall piece is placed at a higher cell than the
+		 * previous one, so every set of cells is only found once.
+		 * 
+		 * @param depth
+		 *            the number of tall pieces already placed.
+		 * @param firstCell
+		 *            the lowest cell the next tall piece may be placed at.
+		 * @param occupied
+		 *            the cells covered by the pieces placed so far.
+		 */
+		void placeTallPieces(int depth, int firstCell, int occupied) {
+			if (depth == tallCells.length) {
+				placeSmallPieces(occupied);
+				return;
+			}
+			for (int cell = firstCell; cell < Bitboard.CELL_COUNT; ++cell) {
+				int mask = Bitboard.shapeMask(Bitboard.SHAPE_TALL, cell);
+				if (mask != 0 && (mask & occupied) == 0) {
+					tallCells[depth] = cell;
+					placeTallPieces(depth + 1, cell + 1, occupied | mask);
+				}
+			}
+		}
+
+		/**
+		 * Adds every placement of the 4 small pieces to the free cells (4 of the 6 free cells are
+		 * covered, 2 are left empty).
+		 * 
+		 * @param occupied
+		 *            the cells covered by the sun, wide and tall pieces.
+		 */
+		void placeSmallPieces(int occupied) {
+			int free = ~occupied & Bitboard.FULL_BOARD;
+			for (int i = 0; i < freeCells.length; ++i) {
+				freeCells[i] = Integer.numberOfTrailingZeros(free);
+				free &= free - 1;
+			}
+
+			for (int firstEmpty = 0; firstEmpty < freeCells.length; ++firstEmpty) {
+				for (int secondEmpty = firstEmpty + 1; secondEmpty < freeCells.length; ++secondEmpty) {
+					int next = 0;
+					for (int i = 0; i < freeCells.length; ++i) {
+						if (i != firstEmpty && i != secondEmpty) {
+							smallCells[next++] = freeCells[i];
+						}
+					}
+					if (count == found.length) {
+						found = Arrays.copyOf(found, found.length * 2);
+					}
+					found[count++] = pack(sunCell, wideCell, tallCells, smallCells);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the canonical data vector of a configuration given by cells. Pieces of the same type
+	 * are sorted by their packed x and y, with the smallest stored at the highest index of their
+	 * type (the same order that State produces).
+	 */
+	private static long pack(int sunCell, int wideCell, int[] tallCells, int[] smallCells) {
+		int[] tallFields = new int[4];
+		int[] smallFields = new int[4];
+		for (int i = 0; i < 4; ++i) {
+			tallFields[i] = Bitboard.fieldOfCell(tallCells[i]);
+			smallFields[i] = Bitboard.fieldOfCell(smallCells[i]);
+		}
+		Arrays.sort(tallFields);
+		Arrays.sort(smallFields);
+
+		long dataVector = 0;
+		dataVector |= (long) Bitboard.fieldOfCell(sunCell) << (6 * State.sunIndex);
+		dataVector |= (long) Bitboard.fieldOfCell(wideCell) << (6 * State.wideIndex);
+		for (int i = 0; i < 4; ++i) {
+			dataVector |= (long) tallFields[i] << (6 * (State.tall1Index - i));
+			dataVector |= (long) smallFields[i] << (6 * (State.small1Index - i));
+		}
+		return dataVector;
+	}
+}
@@ -0,0 +1,160 @@
+package enigma.engine;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A breadth first search that can be paused and resumed, so a solve can be spread over many frames
+ * of the render loop instead of freezing the game until it is done. The HTML backend has no
+ * threads, so this is also the only way to solve there without blocking the page.
+ *
+ * start() loads the start state, and every call to step() expands states until a time budget is
+ * used up. The queue (the arena) and the memo are kept between calls, so the search continues
+ * exactly where it stopped. The search expands states in the same order as SettingSun.solvePuzzle,
+ * so it finds the same solution no matter how it is split into steps.
+ *
+ * The clock is only read every EXPANSIONS_PER_CLOCK_CHECK expansions, so every step expands at
+ * least EXPANSIONS_PER_CLOCK_CHECK - 1 states (even with a budget of 0), and the search itself runs
+ * past the budget by at most the time of that many expansions (tens of microseconds on a desktop).
+ * The step that reaches the goal also builds the solution, one State per move. Nothing else in a
+ * step depends on the size of the search: the arena and the memo are sized for the largest
+ * component, so they never grow during a step. A step can still take much longer than its budget
+ * when the thread is not running at all, e.g. during a garbage collection or while the JIT compiles
+ * the search; on a single CPU the benchmark has seen 4 ms steps with a 0.1 ms budget this way. Such
+ * pauses stall the render loop no matter how the work is split. TimeUtils is used for the clock
+ * since it works on every backend.
+ */
+public class SteppedSolver {
+	// the clock is read once every this many expansions (a power of 2)
+	private static final int EXPANSIONS_PER_CLOCK_CHECK = 16;
+
+	private static final int EXPECTED_STATE_COUNT = 1 << 16;
+	private static final int NO_WIN_STATE = -1;
+
+	private final SearchArena arena = new SearchArena(EXPECTED_STATE_COUNT);
+	private final LongHashSet memo = new LongHashSet(EXPECTED_STATE_COUNT);
+	private final MoveGenerator generator = new MoveGenerator();
+	private final long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+
+	private boolean running = false;
+	private SolveResult result = null;
+	private int winIndex = NO_WIN_STATE;
+	private int depth = 0;
+	private int nextLayerStart = 0;
+	private long elapsedNanos = 0;
+
+	/**
+	 * Starts a new search, discarding any search in progress. No states are expanded until step()
+	 * is called.
+	 *
+	 * @param start
+	 *            the state to solve from.
+	 */
+	public void start(State start) {
+		arena.reset();
+		memo.clear();
+		winIndex = NO_WIN_STATE;
+		depth = 0;
+		elapsedNanos = 0;
+		result = null;
+		running = true;
+
+		// like SettingSun, the start state is queued but not added to the memo
+		arena.add(start.dataVector, SearchArena.NO_PARENT);
+		nextLayerStart = arena.size();
+	}
+
+	/**
+	 * Continues the search for about a given amount of time.
+	 *
+	 * @param nanoBudget
+	 *            the time the step may take, in nanoseconds.
+	 * @return whether the search is finished (see getResult).
+	 */
+	public boolean step(long nanoBudget) {
+		if (!running) {
+			return true;
+		}
+
+		long begin = TimeUtils.nanoTime();
+		int expanded = 0;
+		while (winIndex == NO_WIN_STATE && arena.hasNext()) {
+			if ((++expanded & (EXPANSIONS_PER_CLOCK_CHECK - 1)) == 0 && TimeUtils.nanoTime() - begin >= nanoBudget) {
+				break;
+			}
+
+			int currIndex = arena.next();
+			if (currIndex == nextLayerStart) {
+				depth++;
+				nextLayerStart = arena.size();
+			}
+			expand(currIndex);
+		}
+		elapsedNanos += TimeUtils.nanoTime() - begin;
+
+		if (winIndex != NO_WIN_STATE) {
+			State solution = arena.buildChain(winIndex);
+			finish(SolveResult.Status.SOLVED, solution, depth + 1);
+		} else if (!arena.hasNext()) {
+			finish(SolveResult.Status.UNSOLVABLE, null, depth);
+		}
+		return !running;
+	}
+
+	/**
+	 * Stops the search in progress. The result's status is CANCELLED.
+	 */
+	public void cancel() {
+		if (running) {
+			finish(SolveResult.Status.CANCELLED, null, depth);
+		}
+	}
+
+	/**
+	 * @return whether a search has been started and has not finished yet.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return the result of the last search, or null if it has not finished yet.
+	 */
+	public SolveResult getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the number of states expanded so far by the current (or last) search.
+	 */
+	public int getExpandedCount() {
+		return arena.expandedCount();
+	}
+
+	/**
+	 * @return the number of moves from the start state to the last state expanded.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	private void finish(SolveResult.Status status, State solution, int depthReached) {
+		running = false;
+		result = new SolveResult(status, solution, arena.expandedCount(), arena.size(), depthReached, elapsedNanos / 1000000);
+	}
+
+	/**
+	 * Adds the unvisited successors of a state to the queue, stopping at a win state.
+	 */
+	private void expand(int currIndex) {
+		int count = generator.generate(arena.dataVectorAt(currIndex), successors, null);
+		for (int i = 0; i < count; ++i) {
+			if (memo.add(successors[i])) {
+				int newIndex = arena.add(successors[i], currIndex);
+				if (SettingSun.isWinState(successors[i])) {
+					winIndex = newIndex;
+					return;
+				}
+			}
+		}
+	}
+}
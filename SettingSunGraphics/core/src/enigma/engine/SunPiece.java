@@ -47,4 +47,8 @@ public class SunPiece extends PlayPiece {
 		return ret;
 	}
 
+	@Override
+	public int getShape() {
+		return Bitboard.SHAPE_SUN;
+	}
 }
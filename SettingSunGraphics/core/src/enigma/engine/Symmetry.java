@@ -0,0 +1,52 @@
+package enigma.engine;
+
+/**
+ * Helpers for the left-right mirror symmetry of the board.
+ *
+ * Reflecting a configuration across the middle of the board (column x becomes column 3 - x, minus
+ * one more for the 2 wide sun and wide pieces) gives another legal configuration, and a move in one
+ * is a mirrored move in the other. The win point is in the middle columns, so a state and its
+ * mirror image always need the same number of moves to win. A search for a win state therefore
+ * only needs to visit one of every mirrored pair: if the mirror image of a state has already been
+ * found at the same or a shorter depth, the state can not lead to a shorter solution.
+ *
+ * The canonical key of a state is the smaller of its data vector and its mirrored data vector. It
+ * is only used as the key in the memo; the search still stores and expands the real states, so the
+ * solution is made of real moves from the start state and does not need to be un-mirrored.
+ */
+public class Symmetry {
+
+	/**
+	 * Reflects a configuration left to right.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of a state.
+	 * @return the canonical data vector of the mirrored state.
+	 */
+	public static long mirror(long dataVector) {
+		long mirrored = 0;
+		for (int index = 0; index < 10; ++index) {
+			int field = Bitboard.fieldAt(dataVector, index);
+			int width = Bitboard.SHAPE_WIDTH[Bitboard.SHAPE_AT_INDEX[index]];
+			int x = Bitboard.COLUMNS - width - (field >>> 3);
+			mirrored |= (long) ((x << 3) | (field & 7)) << (6 * index);
+		}
+
+		// mirroring changes the order of the tall and small pieces, so they are sorted again
+		mirrored = State.sortFields(mirrored, State.tall4Index);
+		mirrored = State.sortFields(mirrored, State.small4Index);
+		return mirrored;
+	}
+
+	/**
+	 * Finds the key shared by a state and its mirror image.
+	 *
+	 * @param dataVector
+	 *            the canonical data vector of a state.
+	 * @return the smaller of the data vector and the mirrored data vector.
+	 */
+	public static long canonicalKey(long dataVector) {
+		long mirrored = mirror(dataVector);
+		return mirrored < dataVector ? mirrored : dataVector;
+	}
+}
@@ -41,4 +41,9 @@ public class TallPiece extends PlayPiece {
 		representsPoints.get(1).setXY(x, y + 1);
 		return ret;
 	}
+
+	@Override
+	public int getShape() {
+		return Bitboard.SHAPE_TALL;
+	}
 }
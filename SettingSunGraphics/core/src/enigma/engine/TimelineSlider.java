@@ -0,0 +1,246 @@
+package enigma.engine;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * The controls for stepping through a solution, shared by the games: stepping one move forward or
+ * back, the HOME, END, PAGE_UP and PAGE_DOWN keys, and a slider that can be clicked or dragged to
+ * any step.
+ *
+ * The slider keeps the SolutionTimeline of the solution being shown. Every seek tells the listener
+ * which pieces are somewhere else at the new step, so only those pieces are moved on screen. If the
+ * player moves pieces by hand (see piecesMoved), the next seek shows the whole state instead, so
+ * the board can not drift from the timeline. The slider is only drawn while there is a solution.
+ */
+public class TimelineSlider {
+	// the number of steps PAGE_UP and PAGE_DOWN seek by
+	private static final int PAGE = 10;
+
+	/**
+	 * Receives the pieces to move when the step being shown changes.
+	 */
+	public interface Listener {
+
+		/**
+		 * Positions every piece at a state.
+		 *
+		 * @param state
+		 *            the state of the step being shown.
+		 */
+		void showState(State state);
+
+		/**
+		 * Moves a single piece.
+		 *
+		 * @param index
+		 *            the data vector index of the piece (see State).
+		 * @param position
+		 *            the new top-left cell of the piece (only valid during the call).
+		 */
+		void movePiece(int index, Point position);
+	}
+
+	private final Sprite track;
+	private final Sprite knob;
+	private final Listener listener;
+	private final Point position = new Point(0, 0);
+
+	private SolutionTimeline timeline = null;
+	private boolean outOfSync = false;
+	private boolean scrubbing = false;
+
+	/**
+	 * Constructor for a slider with no solution.
+	 *
+	 * @param track
+	 *            the sprite of the slider's track, already scaled and positioned (origin at 0, 0).
+	 * @param knob
+	 *            the sprite of the knob, already scaled (origin at 0, 0); it is moved along the track.
+	 * @param listener
+	 *            the listener that moves the pieces.
+	 */
+	public TimelineSlider(Sprite track, Sprite knob, Listener listener) {
+		this.track = track;
+		this.knob = knob;
+		this.listener = listener;
+	}
+
+	/**
+	 * Shows a solution, starting at its first step (the pieces are expected to be there already).
+	 *
+	 * @param solution
+	 *            the solution to step through, or null to hide the slider.
+	 */
+	public void show(Solution solution) {
+		timeline = solution != null ? new SolutionTimeline(solution) : null;
+		outOfSync = false;
+		updateKnob();
+	}
+
+	/**
+	 * Tells the slider that the player moved pieces, so the next seek positions every piece.
+	 */
+	public void piecesMoved() {
+		outOfSync = true;
+	}
+
+	/**
+	 * Shows the next step of the solution (if there is one).
+	 */
+	public void next() {
+		if (timeline != null) {
+			seekTo(timeline.getStep() + 1);
+		}
+	}
+
+	/**
+	 * Shows the previous step of the solution (if there is one).
+	 */
+	public void previous() {
+		if (timeline != null) {
+			seekTo(timeline.getStep() - 1);
+		}
+	}
+
+	/**
+	 * Seeks with the HOME, END, PAGE_UP and PAGE_DOWN keys; called once a frame.
+	 */
+	public void handleKeys() {
+		if (timeline == null) {
+			return;
+		}
+		if (Gdx.input.isKeyJustPressed(Input.Keys.HOME)) {
+			seekTo(0);
+		}
+		if (Gdx.input.isKeyJustPressed(Input.Keys.END)) {
+			seekTo(timeline.getLastStep());
+		}
+		if (Gdx.input.isKeyJustPressed(Input.Keys.PAGE_UP)) {
+			seekTo(timeline.getStep() - PAGE);
+		}
+		if (Gdx.input.isKeyJustPressed(Input.Keys.PAGE_DOWN)) {
+			seekTo(timeline.getStep() + PAGE);
+		}
+	}
+
+	/**
+	 * Shows a step of the solution. Steps outside the solution are clamped to the first or last
+	 * step.
+	 *
+	 * @param step
+	 *            the step to show.
+	 */
+	public void seekTo(int step) {
+		if (timeline == null) {
+			return;
+		}
+
+		int changed = timeline.seek(step);
+		long dataVector = timeline.getDataVector(timeline.getStep());
+		if (outOfSync) {
+			listener.showState(new State(dataVector, null));
+			outOfSync = false;
+		} else {
+			for (; changed != 0; changed &= changed - 1) {
+				int index = Integer.numberOfTrailingZeros(changed);
+				int field = Bitboard.fieldAt(dataVector, index);
+				position.x = field >>> 3;
+				position.y = field & 7;
+				listener.movePiece(index, position);
+			}
+		}
+		updateKnob();
+	}
+
+	/**
+	 * Starts scrubbing if a touch is on the slider. The slider is thin, so touches within the
+	 * height of its knob count as touching it.
+	 *
+	 * @param pointTouched
+	 *            the touch in game coordinates.
+	 * @return whether the touch was on the slider.
+	 */
+	public boolean touchDown(Vector3 pointTouched) {
+		if (timeline == null) {
+			return false;
+		}
+		float knobSize = knob.getWidth() * knob.getScaleX();
+		float xMin = track.getX() - knobSize / 2;
+		float xMax = track.getX() + track.getWidth() * track.getScaleX() + knobSize / 2;
+		float yMin = knob.getY();
+		float yMax = yMin + knobSize;
+		if (pointTouched.x > xMin && pointTouched.x < xMax && pointTouched.y > yMin && pointTouched.y < yMax) {
+			scrubbing = true;
+			scrubTo(pointTouched.x);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Seeks to the step under a drag that started on the slider.
+	 *
+	 * @param pointTouched
+	 *            the touch in game coordinates.
+	 * @return whether the slider is being scrubbed (and used the drag).
+	 */
+	public boolean touchDragged(Vector3 pointTouched) {
+		if (!scrubbing) {
+			return false;
+		}
+		scrubTo(pointTouched.x);
+		return true;
+	}
+
+	/**
+	 * Ends scrubbing.
+	 */
+	public void touchUp() {
+		scrubbing = false;
+	}
+
+	/**
+	 * Draws the slider and the number of the step being shown, if there is a solution.
+	 *
+	 * @param batch
+	 *            the batch to draw with.
+	 * @param font
+	 *            the font of the step number.
+	 * @param textX
+	 *            the x position of the step number.
+	 * @param textY
+	 *            the y position of the step number.
+	 */
+	public void draw(SpriteBatch batch, BitmapFont font, float textX, float textY) {
+		if (timeline == null) {
+			return;
+		}
+		track.draw(batch);
+		knob.draw(batch);
+		font.draw(batch, "Step " + timeline.getStep() + " / " + timeline.getLastStep(), textX, textY);
+	}
+
+	/**
+	 * Seeks to the step under an x position on the slider.
+	 */
+	private void scrubTo(float x) {
+		float fraction = (x - track.getX()) / (track.getWidth() * track.getScaleX());
+		seekTo(Math.round(fraction * timeline.getLastStep()));
+	}
+
+	private void updateKnob() {
+		if (timeline == null) {
+			return;
+		}
+		float trackWidth = track.getWidth() * track.getScaleX();
+		float trackHeight = track.getHeight() * track.getScaleY();
+		float knobSize = knob.getWidth() * knob.getScaleX();
+		float fraction = timeline.getLastStep() == 0 ? 0 : timeline.getStep() / (float) timeline.getLastStep();
+		knob.setPosition(track.getX() + fraction * trackWidth - knobSize / 2, track.getY() + (trackHeight - knobSize) / 2);
+	}
+}
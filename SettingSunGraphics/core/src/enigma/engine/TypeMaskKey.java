@@ -0,0 +1,215 @@
+package enigma.engine;
+
+/**
+ * An alternative key format for a configuration, stored as the set of cells used by each piece
+ * type instead of a list of piece positions.
+ *
+ * The data vector (see State) stores the 4 tall pieces and the 4 small pieces in a fixed order, so
+ * the pieces of a type must be sorted to make permutations of the same configuration produce the
+ * same key. This format stores a mask of the top-left cells of each type instead. Identical pieces
+ * are simply bits in the same mask, so there is no order to sort and the key is canonical as it is
+ * built. The key is packed into a long:
+ *
+ * bits 0-19: a bit for the cell of every small piece.
+ *
+ * bits 20-39: a bit for the top cell of every tall piece.
+ *
+ * bits 40-44: the top-left cell of the wide piece.
+ *
+ * bits 45-49: the top-left cell of the sun piece.
+ *
+ * A move is an XOR: a small or tall piece moving from one cell to another clears the old bit and
+ * sets the new bit of its mask, and the sun or wide piece's cell is replaced by XOR-ing the old and
+ * new cell. Conversions to and from the data vector are provided so the GUI can keep using State.
+ */
+public class TypeMaskKey {
+	public static final int SMALL_SHIFT = 0;
+	public static final int TALL_SHIFT = 20;
+	public static final int WIDE_SHIFT = 40;
+	public static final int SUN_SHIFT = 45;
+
+	private static final long CELL_MASK = Bitboard.FULL_BOARD;
+	private static final int SINGLE_CELL = 31;
+	private static final int WIN_SUN_CELL = Bitboard.cellOf(1, 3);
+
+	// the most moves possible from a configuration (see MoveGenerator.MAX_SUCCESSORS)
+	public static final int MAX_SUCCESSORS = MoveGenerator.MAX_SUCCESSORS;
+
+	/**
+	 * Converts a data vector into a key.
+	 *
+	 * @param dataVector
+	 *            the data vector of a state (it does not need to be sorted).
+	 * @return the key of the configuration.
+	 */
+	public static long fromDataVector(long dataVector) {
+		long key = 0;
+		for (int index = State.small4Index; index <= State.small1Index; ++index) {
+			key |= 1L << (SMALL_SHIFT + Bitboard.cellOfField(Bitboard.fieldAt(dataVector, index)));
+		}
+		for (int index = State.tall4Index; index <= State.tall1Index; ++index) {
+			key |= 1L << (TALL_SHIFT + Bitboard.cellOfField(Bitboard.fieldAt(dataVector, index)));
+		}
+		key |= (long) Bitboard.cellOfField(Bitboard.fieldAt(dataVector, State.wideIndex)) << WIDE_SHIFT;
+		key |= (long) Bitboard.cellOfField(Bitboard.fieldAt(dataVector, State.sunIndex)) << SUN_SHIFT;
+		return key;
+	}
+
+	/**
+	 * Converts a key back into a canonical data vector.
+	 *
+	 * @param key
+	 *            the key of a configuration.
+	 * @return the data vector of the configuration.
+	 */
+	public static long toDataVector(long key) {
+		long dataVector = 0;
+		dataVector |= (long) Bitboard.fieldOfCell(sunCell(key)) << (6 * State.sunIndex);
+		dataVector |= (long) Bitboard.fieldOfCell(wideCell(key)) << (6 * State.wideIndex);
+		dataVector = storeMask(dataVector, tallMask(key), State.tall4Index);
+		dataVector = storeMask(dataVector, smallMask(key), State.small4Index);
+
+		// cells are numbered row by row, but the data vector is sorted by column first
+		dataVector = State.sortFields(dataVector, State.tall4Index);
+		return State.sortFields(dataVector, State.small4Index);
+	}
+
+	/**
+	 * @param state
+	 *            a state.
+	 * @return the key of the state's configuration.
+	 */
+	public static long fromState(State state) {
+		return fromDataVector(state.dataVector);
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return a new state (not linked to any other state) with the key's configuration.
+	 */
+	public static State toState(long key) {
+		return new State(toDataVector(key), null);
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return a mask with a bit set for the cell of every small piece.
+	 */
+	public static int smallMask(long key) {
+		return (int) ((key >>> SMALL_SHIFT) & CELL_MASK);
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return a mask with a bit set for the top cell of every tall piece.
+	 */
+	public static int tallMask(long key) {
+		return (int) ((key >>> TALL_SHIFT) & CELL_MASK);
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return the top-left cell of the wide piece.
+	 */
+	public static int wideCell(long key) {
+		return (int) (key >>> WIDE_SHIFT) & SINGLE_CELL;
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return the top-left cell of the sun piece.
+	 */
+	public static int sunCell(long key) {
+		return (int) (key >>> SUN_SHIFT) & SINGLE_CELL;
+	}
+
+	/**
+	 * @param key
+	 *            the key of a configuration.
+	 * @return if the sun piece is in the winning position.
+	 */
+	public static boolean isWinState(long key) {
+		return sunCell(key) == WIN_SUN_CELL;
+	}
+
+	/**
+	 * Calculates which cells are occupied by a configuration.
+	 *
+	 * @param key
+	 *            the key of a configuration.
+	 * @return a bitboard with a bit set for every occupied cell.
+	 */
+	public static int occupancy(long key) {
+		int tallTops = tallMask(key);
+		return smallMask(key) | tallTops | (tallTops << Bitboard.COLUMNS) | Bitboard.shapeMask(Bitboard.SHAPE_WIDE, wideCell(key))
+				| Bitboard.shapeMask(Bitboard.SHAPE_SUN, sunCell(key));
+	}
+
+	/**
+	 * Finds every configuration reachable with a single move. Each successor is the key XOR-ed with
+	 * the bits of the moved piece's old and new cell.
+	 *
+	 * @param key
+	 *            the key of a configuration.
+	 * @param successors
+	 *            array where the keys of the successors are stored (at least MAX_SUCCESSORS long).
+	 * @return the number of successors.
+	 */
+	public static int generate(long key, long[] successors) {
+		int occupied = occupancy(key);
+		int count = 0;
+
+		count = addSingleCellMoves(key, Bitboard.SHAPE_SUN, sunCell(key), SUN_SHIFT, occupied, successors, count);
+		count = addSingleCellMoves(key, Bitboard.SHAPE_WIDE, wideCell(key), WIDE_SHIFT, occupied, successors, count);
+		for (int pieces = smallMask(key); pieces != 0; pieces &= pieces - 1) {
+			count = addMaskMoves(key, Bitboard.SHAPE_SMALL, Integer.numberOfTrailingZeros(pieces), SMALL_SHIFT, occupied, successors, count);
+		}
+		for (int pieces = tallMask(key); pieces != 0; pieces &= pieces - 1) {
+			count = addMaskMoves(key, Bitboard.SHAPE_TALL, Integer.numberOfTrailingZeros(pieces), TALL_SHIFT, occupied, successors, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the moves of the sun or wide piece, whose cell is stored as a number.
+	 */
+	private static int addSingleCellMoves(long key, int shape, int cell, int shift, int occupied, long[] successors, int count) {
+		for (int direction = 0; direction < MoveTable.DIRECTION_COUNT - 1; ++direction) {
+			int entry = MoveTable.entryOf(shape, cell, direction);
+			if (MoveTable.isValid(entry) && (MoveTable.entering(entry) & occupied) == 0) {
+				successors[count++] = key ^ ((long) (cell ^ MoveTable.destination(entry)) << shift);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the moves of a small or tall piece, whose cell is a bit of its type's mask.
+	 */
+	private static int addMaskMoves(long key, int shape, int cell, int shift, int occupied, long[] successors, int count) {
+		for (int direction = 0; direction < MoveTable.DIRECTION_COUNT - 1; ++direction) {
+			int entry = MoveTable.entryOf(shape, cell, direction);
+			if (MoveTable.isValid(entry) && (MoveTable.entering(entry) & occupied) == 0) {
+				successors[count++] = key ^ (((1L << cell) | (1L << MoveTable.destination(entry))) << shift);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Stores the cells of a mask in the 4 indices of a piece type.
+	 */
+	private static long storeMask(long dataVector, int mask, int lowIndex) {
+		int index = lowIndex;
+		for (; mask != 0; mask &= mask - 1) {
+			dataVector |= (long) Bitboard.fieldOfCell(Integer.numberOfTrailingZeros(mask)) << (6 * index);
+			index++;
+		}
+		return dataVector;
+	}
+}
@@ -41,4 +41,9 @@ public class WidePiece extends PlayPiece {
 		ret.get(1).setXY(x + 1, y);
 		return ret;
 	}
+
+	@Override
+	public int getShape() {
+		return Bitboard.SHAPE_WIDE;
+	}
 }
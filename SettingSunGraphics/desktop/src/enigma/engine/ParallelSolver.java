@@ -0,0 +1,198 @@
+package enigma.engine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A breadth first search that expands each layer of the search on multiple threads.
+ *
+ * The search is level-synchronous: all states at distance d from the start (the frontier) are
+ * split into chunks, and every chunk is expanded by a task on a ForkJoinPool. States are
+ * identified by their rank (see StateIndex), so the visited structure is simply an array holding
+ * the parent rank of every state. A state is claimed with an atomic compare-and-set, so exactly one
+ * task adds each state to the next frontier. Once every chunk is done, the chunks' discoveries are
+ * merged into the next frontier and the next layer begins.
+ *
+ * Because whole layers are expanded before moving on, the solution found has the same number of
+ * moves as the one found by the sequential solver (SettingSun.solvePuzzle), though it may pass
+ * through different states of the same distance.
+ *
+ * This is a desktop only class (the HTML backend has no threads).
+ */
+public class ParallelSolver {
+	// number of frontier states expanded by a single task
+	private static final int CHUNK_SIZE = 256;
+
+	// parent value of states that have not been found yet, and of the start state
+	private static final int UNVISITED = -2;
+	private static final int NO_PARENT = -1;
+
+	private final ForkJoinPool pool;
+	private int expandedCount;
+	private int depth;
+
+	/**
+	 * Constructor that creates a pool with a given number of threads.
+	 *
+	 * @param parallelism
+	 *            the number of threads to use.
+	 */
+	public ParallelSolver(int parallelism) {
+		this(new ForkJoinPool(parallelism));
+	}
+
+	/**
+	 * Constructor that uses an existing pool.
+	 *
+	 * @param pool
+	 *            the pool that runs the expansion tasks.
+	 */
+	public ParallelSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds a shortest solution from a start state.
+	 *
+	 * @param start
+	 *            the start state.
+	 * @return a linked list of states from the start state to a winning state, or null if there is
+	 *         no solution.
+	 */
+	public State solvePuzzle(State start) {
+		int startRank = StateIndex.rankOf(start.dataVector);
+		expandedCount = 0;
+		depth = 0;
+		if (startRank < 0) {
+			return null;
+		}
+
+		AtomicIntegerArray parents = new AtomicIntegerArray(StateIndex.size());
+		for (int rank = 0; rank < parents.length(); ++rank) {
+			parents.set(rank, UNVISITED);
+		}
+		parents.set(startRank, NO_PARENT);
+
+		int[] frontier = { startRank };
+		int frontierSize = 1;
+		int winRank = SettingSun.isWinState(start.dataVector) ? startRank : -1;
+
+		while (winRank < 0 && frontierSize > 0) {
+			// expand every chunk of the frontier in parallel
+			int chunkCount = (frontierSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			final ExpandChunk[] chunks = new ExpandChunk[chunkCount];
+			for (int i = 0; i < chunkCount; ++i) {
+				chunks[i] = new ExpandChunk(frontier, i * CHUNK_SIZE, Math.min(frontierSize, (i + 1) * CHUNK_SIZE), parents);
+			}
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(chunks);
+				}
+			});
+			expandedCount += frontierSize;
+			depth++;
+
+			// merge the chunks into the next frontier
+			int nextSize = 0;
+			for (ExpandChunk chunk : chunks) {
+				nextSize += chunk.foundCount;
+			}
+			int[] next = new int[nextSize];
+			nextSize = 0;
+			for (ExpandChunk chunk : chunks) {
+				System.arraycopy(chunk.found, 0, next, nextSize, chunk.foundCount);
+				nextSize += chunk.foundCount;
+				if (winRank < 0 && chunk.winRank >= 0) {
+					winRank = chunk.winRank;
+				}
+			}
+			frontier = next;
+			frontierSize = nextSize;
+		}
+
+		if (winRank < 0) {
+			return null;
+		}
+
+		// follow the parents back to the start state
+		State first = null;
+		for (int rank = winRank; rank != NO_PARENT; rank = parents.get(rank)) {
+			first = new State(StateIndex.dataVectorOf(rank), first);
+		}
+		return first;
+	}
+
+	/**
+	 * @return the number of states expanded by the last solve.
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return the number of layers expanded by the last solve.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Shuts down the pool's threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Task that expands a range of the frontier and collects the states that it claims.
+	 */
+	private static class ExpandChunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] frontier;
+		private final int from;
+		private final int to;
+		private final AtomicIntegerArray parents;
+
+		int[] found;
+		int foundCount = 0;
+		int winRank = -1;
+
+		ExpandChunk(int[] frontier, int from, int to, AtomicIntegerArray parents) {
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.parents = parents;
+		}
+
+		@Override
+		protected void compute() {
+			MoveGenerator generator = new MoveGenerator();
+			long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+			found = new int[(to - from) * 4];
+
+			for (int i = from; i < to; ++i) {
+				int rank = frontier[i];
+				int count = generator.generate(StateIndex.dataVectorOf(rank), successors, null);
+				for (int j = 0; j < count; ++j) {
+					int successorRank = StateIndex.rankOf(successors[j]);
+					if (parents.get(successorRank) == UNVISITED && parents.compareAndSet(successorRank, UNVISITED, rank)) {
+						if (foundCount == found.length) {
+							int[] larger = new int[found.length * 2];
+							System.arraycopy(found, 0, larger, 0, foundCount);
+							found = larger;
+						}
+						found[foundCount++] = successorRank;
+						if (winRank < 0 && SettingSun.isWinState(successors[j])) {
+							winRank = successorRank;
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -1,14 +1,20 @@
 package enigma.engine.desktop;
 
+import java.io.File;
+
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import enigma.engine.SettingSunGame;
 
 public class DesktopLauncher {
+	// solutions are kept in this directory between runs; it can be changed with -Dsettingsun.solutions=<dir>
+	private static final String SOLUTION_DIRECTORY_PROPERTY = "settingsun.solutions";
+
 	public static void main (String[] arg) {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
 		config.height = 800;
 		config.width = 700;
-		new LwjglApplication(new SettingSunGame(), config);
+		File solutionDirectory = new File(System.getProperty(SOLUTION_DIRECTORY_PROPERTY, new File(System.getProperty("user.home"), ".settingsun/solutions").getPath()));
+		new LwjglApplication(new SettingSunGame(new FileSolutionStore(solutionDirectory), new WorkerSolveExecutor()), config);
 	}
 }
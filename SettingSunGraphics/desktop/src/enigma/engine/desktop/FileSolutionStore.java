@@ -0,0 +1,106 @@
+package enigma.engine.desktop;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import enigma.engine.Solution;
+import enigma.engine.SolutionStore;
+
+/**
+ * A SolutionStore that keeps every solution in its own file in a directory, so solutions survive
+ * restarts of the game. The file of a solution is named after the start state's data vector (in
+ * hexadecimal) and holds the solution's bytes (see Solution.toBytes).
+ *
+ * This class uses java.io, which the HTML backend does not support, so it lives in the desktop
+ * project and is passed to the game by the launcher.
+ */
+public class FileSolutionStore implements SolutionStore {
+	private final File directory;
+
+	/**
+	 * Constructor for a store in a directory. The directory is created when the first solution is
+	 * saved.
+	 *
+	 * @param directory
+	 *            the directory that holds the solution files.
+	 */
+	public FileSolutionStore(File directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public Solution load(long startKey) {
+		File file = fileOf(startKey);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		byte[] bytes = new byte[(int) file.length()];
+		FileInputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			int read = 0;
+			while (read < bytes.length) {
+				int count = in.read(bytes, read, bytes.length - read);
+				if (count < 0) {
+					return null;
+				}
+				read += count;
+			}
+			Solution solution = Solution.fromBytes(bytes);
+			return solution.getStartKey() == startKey ? solution : null;
+		} catch (IOException e) {
+			// an unreadable file is treated as a missing solution
+			return null;
+		} catch (IllegalArgumentException e) {
+			// so is a damaged one (or one written in an older format)
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	@Override
+	public void save(Solution solution) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+
+		// write to a temporary file first so a partially written solution is never loaded
+		File file = fileOf(solution.getStartKey());
+		File temporary = new File(directory, file.getName() + ".tmp");
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(temporary);
+			out.write(solution.toBytes());
+			out.close();
+			out = null;
+			if (!temporary.renameTo(file)) {
+				file.delete();
+				temporary.renameTo(file);
+			}
+		} catch (IOException e) {
+			// the solution will be searched for again next time
+			temporary.delete();
+		} finally {
+			close(out);
+		}
+	}
+
+	private File fileOf(long startKey) {
+		return new File(directory, Long.toHexString(startKey) + ".sol");
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// nothing left to do with the stream
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package enigma.engine.desktop;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import enigma.engine.SolveExecutor;
+
+/**
+ * A SolveExecutor that runs solves on a single worker thread. The thread is a daemon thread, so a
+ * solve in progress does not keep the application running after the window is closed.
+ */
+public class WorkerSolveExecutor implements SolveExecutor {
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "solver");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	@Override
+	public void execute(Runnable task) {
+		executor.execute(task);
+	}
+}
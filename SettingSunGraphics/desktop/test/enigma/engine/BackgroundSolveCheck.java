@@ -0,0 +1,127 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Solving on a worker thread.
+ */
+class BackgroundSolveCheck {
+	/**
+	 * Runs background solves on a worker thread through a SolveExecutor, the way the game does. The
+	 * executor only starts a task when it is released, and the solve waits after every step until it
+	 * is released again, so the progress published by every step is seen no matter how the threads
+	 * are scheduled. The steps have no time budget, so every step expands the fewest states a step
+	 * can, and the number of steps does not depend on the speed of the machine either. Then checks that a solve cancelled between steps reports CANCELLED.
+	 */
+	static void run() {
+		SettingSun solver = new SettingSun();
+		State start = solver.getCurrentState();
+		long[] expected = chainDataVectors(solver.solvePuzzle());
+
+		// nothing runs before the executor starts the task
+		GatedExecutor executor = new GatedExecutor();
+		GatedSolve solve = new GatedSolve(start);
+		executor.execute(solve);
+		if (solve.getExpandedCount() != 0 || solve.getResult() != null) {
+			throw new RuntimeException("background solve ran before it was started");
+		}
+		executor.release();
+
+		// every step publishes more expanded states before the result
+		int steps = 0;
+		int lastExpanded = 0;
+		while (solve.awaitStep()) {
+			if (solve.getResult() != null || solve.getExpandedCount() <= lastExpanded) {
+				throw new RuntimeException("background solve did not publish its progress");
+			}
+			lastExpanded = solve.getExpandedCount();
+			steps++;
+			solve.release();
+		}
+		if (steps == 0 || !Arrays.equals(chainDataVectors(solve.getResult().getSolution()), expected)) {
+			throw new RuntimeException("background solution differs from solvePuzzle");
+		}
+
+		// a solve cancelled while it waits between steps stops before its next step
+		GatedSolve cancelled = new GatedSolve(start);
+		executor.execute(cancelled);
+		executor.release();
+		if (!cancelled.awaitStep()) {
+			throw new RuntimeException("background solve finished in its first step");
+		}
+		int expandedWhenCancelled = cancelled.getExpandedCount();
+		cancelled.cancel();
+		cancelled.release();
+		if (cancelled.awaitStep() || cancelled.getResult().getStatus() != SolveResult.Status.CANCELLED
+				|| cancelled.getResult().getExpandedCount() != expandedWhenCancelled) {
+			throw new RuntimeException("background solve was not cancelled");
+		}
+		System.out.println("background solve check (" + steps + " steps, progress published after every step, cancelled after "
+				+ expandedWhenCancelled + " expanded states)");
+	}
+
+	/**
+	 * A SolveExecutor that runs each task on a new thread, once release is called.
+	 */
+	private static class GatedExecutor implements SolveExecutor {
+		private final Semaphore gate = new Semaphore(0);
+
+		@Override
+		public void execute(final Runnable task) {
+			Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					gate.acquireUninterruptibly();
+					task.run();
+				}
+			});
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		void release() {
+			gate.release();
+		}
+	}
+
+	/**
+	 * A background solve that waits after every step until it is released.
+	 */
+	private static class GatedSolve extends BackgroundSolve {
+		private final Semaphore stepped = new Semaphore(0);
+		private final Semaphore resume = new Semaphore(0);
+
+		GatedSolve(State start) {
+			super(start, 0);
+		}
+
+		@Override
+		public void run() {
+			super.run();
+			stepped.release();
+		}
+
+		@Override
+		void stepFinished() {
+			stepped.release();
+			resume.acquireUninterruptibly();
+		}
+
+		/**
+		 * Waits until the worker has finished a step or the whole solve.
+		 *
+		 * @return true if the worker is waiting between steps, false if the solve is done.
+		 */
+		boolean awaitStep() {
+			stepped.acquireUninterruptibly();
+			return getResult() == null;
+		}
+
+		void release() {
+			resume.release();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+import static enigma.engine.BenchmarkSupport.checkMoves;
+import static enigma.engine.BenchmarkSupport.firstUnsolvableState;
+import static enigma.engine.BenchmarkSupport.lastState;
+
+import java.util.Random;
+
+/**
+ * Solving many start states with one search.
+ */
+class BatchSolverBenchmark {
+	/**
+	 * Compares solving a batch of start states with one BatchSolver search against calling
+	 * solvePuzzle for every start. Every batch solution must be a chain of legal moves with the same
+	 * number of moves as the distance table reports.
+	 */
+	static void run() {
+		final int batchSize = 200;
+		long[] legal = new long[StateIndex.size()];
+		for (int rank = 0; rank < legal.length; ++rank) {
+			legal[rank] = StateIndex.dataVectorOf(rank);
+		}
+		Random rand = new Random(5);
+		long[] starts = new long[batchSize];
+		for (int i = 0; i < batchSize; ++i) {
+			starts[i] = legal[rand.nextInt(legal.length)];
+		}
+
+		BatchSolver batchSolver = new BatchSolver();
+		BatchSolver.BatchSolution batch = batchSolver.solve(starts);
+		int unsolvable = 0;
+		for (int i = 0; i < batchSize; ++i) {
+			int length = batch.getLength(i);
+			if (length != DistanceTable.distanceOf(starts[i])) {
+				throw new RuntimeException("batch length differs from the distance table for state " + Long.toHexString(starts[i]));
+			}
+			if (length == DistanceTable.UNSOLVABLE) {
+				unsolvable++;
+				continue;
+			}
+			State solution = batch.getSolution(i);
+			if (chainLength(solution) != length + 1 || !SettingSun.isWinState(lastState(solution).dataVector)) {
+				throw new RuntimeException("batch solution does not reach the goal for state " + Long.toHexString(starts[i]));
+			}
+			checkMoves(solution);
+		}
+
+		// unsolvable starts are answered without searching, so they do not make the search longer
+		long defaultStart = new SettingSun().getCurrentState().dataVector;
+		batchSolver.solve(new long[] { defaultStart });
+		int defaultExpanded = batchSolver.getExpandedCount();
+		long[] mixed = { defaultStart, firstUnsolvableState(), -1L };
+		BatchSolver.BatchSolution mixedBatch = batchSolver.solve(mixed);
+		if (batchSolver.getExpandedCount() != defaultExpanded || mixedBatch.getSolution(1) != null || mixedBatch.getLength(1) != DistanceTable.UNSOLVABLE
+				|| mixedBatch.getSolution(2) != null || mixedBatch.getLength(0) != DistanceTable.distanceOf(defaultStart)) {
+			throw new RuntimeException("unsolvable starts were searched for");
+		}
+		batchSolver.solve(new long[] { firstUnsolvableState() });
+		if (batchSolver.getExpandedCount() != 0) {
+			throw new RuntimeException("a batch of unsolvable starts was searched");
+		}
+
+		long batchTime = 0;
+		long singleTime = 0;
+		SettingSun solver = new SettingSun();
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			batchSolver.solve(starts);
+			long middle = System.nanoTime();
+			for (long dataVector : starts) {
+				solver.setCurrentState(new State(dataVector, null));
+				solver.solvePuzzle();
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				batchTime += middle - start;
+				singleTime += end - middle;
+			}
+		}
+
+		System.out.println("batch solver benchmark (" + batchSize + " random starts, " + unsolvable + " unsolvable, lengths match the distance table)");
+		printTime("solvePuzzle per start", singleTime, batchSize);
+		printTime("one batch search", batchTime, batchSize);
+	}
+}
@@ -0,0 +1,121 @@
+package enigma.engine;
+
+/**
+ * The settings and helpers shared by the benchmarks. Each benchmark is run a number of times to warm
+ * up the JIT before the timed runs are reported.
+ */
+final class BenchmarkSupport {
+	static final int WARM_UP_RUNS = 5;
+	static final int TIMED_RUNS = 10;
+	static final int LOOK_UPS = 150000;
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * Prints the average time of the timed runs.
+	 *
+	 * @param name
+	 *            name of what was measured
+	 * @param totalNanos
+	 *            total time of all timed runs
+	 * @param operations
+	 *            the number of operations in a single run
+	 */
+	static void printTime(String name, long totalNanos, int operations) {
+		double millisPerRun = totalNanos / (double) TIMED_RUNS / 1e6;
+		double nanosPerOp = totalNanos / (double) TIMED_RUNS / operations;
+		System.out.println(String.format("  %-24s %8.3f ms/run %8.2f ns/op", name, millisPerRun, nanosPerOp));
+	}
+
+	/**
+	 * @return the data vectors of a solution, or an empty array if there is no solution.
+	 */
+	static long[] chainDataVectors(State solution) {
+		long[] dataVectors = new long[chainLength(solution)];
+		int i = 0;
+		for (State iter = solution; iter != null; iter = iter.linkedNode) {
+			dataVectors[i++] = iter.dataVector;
+		}
+		return dataVectors;
+	}
+
+	static int chainLength(State solution) {
+		int length = 0;
+		for (State iter = solution; iter != null; iter = iter.linkedNode) {
+			length++;
+		}
+		return length;
+	}
+
+	static State lastState(State solution) {
+		State last = solution;
+		while (last.linkedNode != null) {
+			last = last.linkedNode;
+		}
+		return last;
+	}
+
+	/**
+	 * Checks that every state of a solution is reached from the previous state by a single move.
+	 */
+	static void checkMoves(State solution) {
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		for (State iter = solution; iter.linkedNode != null; iter = iter.linkedNode) {
+			int count = generator.generate(iter.dataVector, successors, null);
+			boolean found = false;
+			for (int i = 0; i < count && !found; ++i) {
+				found = successors[i] == iter.linkedNode.dataVector;
+			}
+			if (!found) {
+				throw new RuntimeException("solution contains an illegal move");
+			}
+		}
+	}
+
+	/**
+	 * Finds every state reachable from a start state with a breadth first search.
+	 *
+	 * @param start
+	 *            the data vector of the start state.
+	 * @return the data vectors of all reachable states in breadth first order.
+	 */
+	static long[] reachableStates(long start) {
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		LongHashSet visited = new LongHashSet(1 << 16);
+		long[] queue = new long[1 << 16];
+		int head = 0;
+		int tail = 0;
+
+		visited.add(start);
+		queue[tail++] = start;
+		while (head < tail) {
+			int count = generator.generate(queue[head++], successors, null);
+			for (int i = 0; i < count; ++i) {
+				if (visited.add(successors[i])) {
+					if (tail == queue.length) {
+						long[] larger = new long[queue.length * 2];
+						System.arraycopy(queue, 0, larger, 0, tail);
+						queue = larger;
+					}
+					queue[tail++] = successors[i];
+				}
+			}
+		}
+
+		long[] reachable = new long[tail];
+		System.arraycopy(queue, 0, reachable, 0, tail);
+		return reachable;
+	}
+
+	static long firstUnsolvableState() {
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			if (!ComponentIndex.isSolvable(StateIndex.dataVectorOf(rank))) {
+				return StateIndex.dataVectorOf(rank);
+			}
+		}
+		throw new RuntimeException("every state is solvable");
+	}
+}
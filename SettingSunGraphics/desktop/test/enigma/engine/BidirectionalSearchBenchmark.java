@@ -0,0 +1,129 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+import static enigma.engine.BenchmarkSupport.checkMoves;
+import static enigma.engine.BenchmarkSupport.firstUnsolvableState;
+import static enigma.engine.BenchmarkSupport.lastState;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+import java.util.Random;
+
+/**
+ * Finding the shortest way between two configurations by searching from both ends.
+ */
+class BidirectionalSearchBenchmark {
+	/**
+	 * Checks the bidirectional search against a plain breadth first search for random pairs of
+	 * configurations of the default start's component. Every path must go from the start to the
+	 * target with legal moves, and have as many moves as the plain search finds. Then compares the
+	 * time of the two searches.
+	 */
+	static void run() {
+		final int pairCount = 40;
+		long[] reachable = reachableStates(new SettingSun().getCurrentState().dataVector);
+		Random rand = new Random(10);
+		long[] starts = new long[pairCount];
+		long[] targets = new long[pairCount];
+		int[] distances = new int[pairCount];
+		for (int i = 0; i < pairCount; ++i) {
+			starts[i] = reachable[rand.nextInt(reachable.length)];
+			targets[i] = reachable[rand.nextInt(reachable.length)];
+			distances[i] = plainDistance(starts[i], targets[i]);
+		}
+		// a pair that is already there, and the default start to its farthest state
+		targets[0] = starts[0];
+		distances[0] = 0;
+		starts[1] = reachable[0];
+		targets[1] = reachable[reachable.length - 1];
+		distances[1] = plainDistance(starts[1], targets[1]);
+
+		BidirectionalSearch search = new BidirectionalSearch();
+		int longest = 0;
+		for (int i = 0; i < pairCount; ++i) {
+			State path = search.solve(new State(starts[i], null), new State(targets[i], null));
+			if (path == null || path.dataVector != starts[i] || lastState(path).dataVector != targets[i]) {
+				throw new RuntimeException("bidirectional path does not join " + Long.toHexString(starts[i]) + " and " + Long.toHexString(targets[i]));
+			}
+			if (chainLength(path) - 1 != distances[i]) {
+				throw new RuntimeException("bidirectional path is longer than the plain search for " + Long.toHexString(starts[i]));
+			}
+			checkMoves(path);
+			longest = Math.max(longest, distances[i]);
+		}
+
+		// solvePuzzleTo searches from the solver's pieces, and a target in another component is
+		// never reached
+		SettingSun solver = new SettingSun();
+		solver.setCurrentState(new State(starts[2], null));
+		State path = solver.solvePuzzleTo(new State(targets[2], null));
+		if (path == null || chainLength(path) - 1 != distances[2]) {
+			throw new RuntimeException("solvePuzzleTo did not find the shortest path");
+		}
+		if (search.solve(new State(starts[2], null), new State(firstUnsolvableState(), null)) != null) {
+			throw new RuntimeException("a path was found to another component");
+		}
+
+		long plainTime = 0;
+		long bidirectionalTime = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (int i = 0; i < pairCount; ++i) {
+				plainDistance(starts[i], targets[i]);
+			}
+			long middle = System.nanoTime();
+			for (int i = 0; i < pairCount; ++i) {
+				search.solve(starts[i], new long[] { targets[i] });
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				plainTime += middle - start;
+				bidirectionalTime += end - middle;
+			}
+		}
+
+		System.out.println("bidirectional search benchmark (" + pairCount + " pairs up to " + longest + " moves apart, lengths match a plain search)");
+		printTime("plain search", plainTime, pairCount);
+		printTime("bidirectional", bidirectionalTime, pairCount);
+	}
+
+	/**
+	 * Finds the number of moves between two configurations with a breadth first search from the
+	 * first one.
+	 *
+	 * @return the number of moves, or -1 if the target can not be reached.
+	 */
+	private static int plainDistance(long start, long target) {
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		LongHashSet visited = new LongHashSet(1 << 16);
+		long[] queue = new long[StateIndex.size()];
+		int head = 0;
+		int tail = 0;
+		int depth = 0;
+		int layerEnd = 1;
+
+		visited.add(start);
+		queue[tail++] = start;
+		while (head < tail) {
+			if (head == layerEnd) {
+				depth++;
+				layerEnd = tail;
+			}
+			long dataVector = queue[head++];
+			if (dataVector == target) {
+				return depth;
+			}
+			int count = generator.generate(dataVector, successors, null);
+			for (int i = 0; i < count; ++i) {
+				if (visited.add(successors[i])) {
+					queue[tail++] = successors[i];
+				}
+			}
+		}
+		return -1;
+	}
+}
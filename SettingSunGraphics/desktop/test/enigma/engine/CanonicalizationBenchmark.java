@@ -0,0 +1,102 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Sorting identical pieces into canonical order.
+ */
+class CanonicalizationBenchmark {
+	/**
+	 * Compares sorting the tall and small pieces with the sorting network in State with the original
+	 * sort (an ArrayList of Points sorted with PointCompare). The pieces of every legal
+	 * configuration are shuffled, and both sorts must give back the original canonical data vector.
+	 */
+	static void run() {
+		Random rand = new Random(3);
+		long[] shuffled = new long[StateIndex.size()];
+		for (int rank = 0; rank < shuffled.length; ++rank) {
+			long dataVector = StateIndex.dataVectorOf(rank);
+			dataVector = shuffleFields(dataVector, State.tall4Index, rand);
+			shuffled[rank] = shuffleFields(dataVector, State.small4Index, rand);
+		}
+
+		ArrayList<Point> points = new ArrayList<Point>();
+		for (int i = 0; i < 4; ++i) {
+			points.add(new Point(0, 0));
+		}
+		PointCompare comparer = new PointCompare();
+		for (int rank = 0; rank < shuffled.length; ++rank) {
+			long expected = StateIndex.dataVectorOf(rank);
+			long network = State.sortFields(State.sortFields(shuffled[rank], State.tall4Index), State.small4Index);
+			long legacy = legacySort(legacySort(shuffled[rank], State.tall4Index, points, comparer), State.small4Index, points, comparer);
+			if (network != expected || legacy != expected) {
+				throw new RuntimeException("sorted data vector differs for state " + Long.toHexString(expected));
+			}
+		}
+
+		long legacyTime = 0;
+		long networkTime = 0;
+		long checksum = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (long dataVector : shuffled) {
+				checksum += legacySort(legacySort(dataVector, State.tall4Index, points, comparer), State.small4Index, points, comparer);
+			}
+			long middle = System.nanoTime();
+			for (long dataVector : shuffled) {
+				checksum -= State.sortFields(State.sortFields(dataVector, State.tall4Index), State.small4Index);
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				legacyTime += middle - start;
+				networkTime += end - middle;
+			}
+		}
+		if (checksum != 0) {
+			throw new RuntimeException("sorts disagree");
+		}
+
+		System.out.println("canonicalization benchmark (" + shuffled.length + " shuffled states, identical keys)");
+		printTime("ArrayList + PointCompare", legacyTime, shuffled.length);
+		printTime("sorting network", networkTime, shuffled.length);
+	}
+
+	/**
+	 * The original sort used by State: the 4 values of a piece type are copied to points, sorted
+	 * with PointCompare and stored back with the smallest value at the highest index.
+	 */
+	private static long legacySort(long dataVector, int lowIndex, ArrayList<Point> points, PointCompare comparer) {
+		for (int i = 0; i < 4; ++i) {
+			int field = Bitboard.fieldAt(dataVector, lowIndex + 3 - i);
+			points.get(i).x = field >>> 3;
+			points.get(i).y = field & 7;
+		}
+		points.sort(comparer);
+		for (int i = 0; i < 4; ++i) {
+			int shift = 6 * (lowIndex + 3 - i);
+			dataVector &= ~(63L << shift);
+			dataVector |= (long) ((points.get(i).x << 3) | points.get(i).y) << shift;
+		}
+		return dataVector;
+	}
+
+	/**
+	 * Randomly reorders the 4 values of a piece type.
+	 */
+	private static long shuffleFields(long dataVector, int lowIndex, Random rand) {
+		for (int i = 3; i > 0; --i) {
+			int j = rand.nextInt(i + 1);
+			int first = Bitboard.fieldAt(dataVector, lowIndex + i);
+			int second = Bitboard.fieldAt(dataVector, lowIndex + j);
+			dataVector &= ~((63L << (6 * (lowIndex + i))) | (63L << (6 * (lowIndex + j))));
+			dataVector |= ((long) second << (6 * (lowIndex + i))) | ((long) first << (6 * (lowIndex + j)));
+		}
+		return dataVector;
+	}
+}
@@ -0,0 +1,105 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+/**
+ * Hit-testing with the cell grid.
+ */
+class CellGridBenchmark {
+	/**
+	 * Compares hit-testing with the CellGrid against checking the rectangle of every piece, the way
+	 * the GUI found the touched sprite before. The pieces of every state of the default solution are
+	 * placed in the grid, and every cell must report the piece the rectangles report.
+	 */
+	static void run() {
+		State solution = new SettingSun().solvePuzzle();
+		int[] widths = { 2, 2, 1, 1, 1, 1, 1, 1, 1, 1 };
+		int[] heights = { 2, 1, 2, 2, 2, 2, 1, 1, 1, 1 };
+		Integer[] pieces = new Integer[widths.length];
+		CellGrid<Integer> grid = new CellGrid<Integer>(Bitboard.COLUMNS, Bitboard.ROWS, pieces.length);
+		for (int i = 0; i < pieces.length; ++i) {
+			pieces[i] = i;
+			grid.add(pieces[i], widths[i], heights[i]);
+		}
+
+		long scanTime = 0;
+		long gridTime = 0;
+		int lookUps = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			lookUps = 0;
+			for (State iter = solution; iter != null; iter = iter.linkedNode) {
+				Point[] points = { iter.getSunPoint(), iter.getWidePoint(), iter.getTall1(), iter.getTall2(), iter.getTall3(), iter.getTall4(),
+						iter.getSmall1(), iter.getSmall2(), iter.getSmall3(), iter.getSmall4() };
+				grid.clear();
+				for (int i = 0; i < pieces.length; ++i) {
+					grid.place(pieces[i], points[i].x, points[i].y);
+				}
+
+				int scanSum = 0;
+				int gridSum = 0;
+				long start = System.nanoTime();
+				for (int cell = 0; cell < Bitboard.CELL_COUNT; ++cell) {
+					int x = Bitboard.columnOf(cell);
+					int y = Bitboard.rowOf(cell);
+					for (int i = 0; i < points.length; ++i) {
+						if (x >= points[i].x && x < points[i].x + widths[i] && y >= points[i].y && y < points[i].y + heights[i]) {
+							scanSum += i + 1;
+							break;
+						}
+					}
+				}
+				long middle = System.nanoTime();
+				for (int cell = 0; cell < Bitboard.CELL_COUNT; ++cell) {
+					Integer piece = grid.itemAt(Bitboard.columnOf(cell), Bitboard.rowOf(cell));
+					if (piece != null) {
+						gridSum += piece + 1;
+					}
+				}
+				long end = System.nanoTime();
+
+				if (scanSum != gridSum) {
+					throw new RuntimeException("cell grid disagrees with the piece rectangles");
+				}
+				lookUps += Bitboard.CELL_COUNT;
+				if (run >= WARM_UP_RUNS) {
+					scanTime += middle - start;
+					gridTime += end - middle;
+				}
+			}
+		}
+
+		// in the default start, tall 1 may move into the blank cell below it but not onto the sun
+		grid.clear();
+		Point[] start = { solution.getSunPoint(), solution.getWidePoint(), solution.getTall1(), solution.getTall2(), solution.getTall3(),
+				solution.getTall4(), solution.getSmall1(), solution.getSmall2(), solution.getSmall3(), solution.getSmall4() };
+		for (int i = 0; i < pieces.length; ++i) {
+			grid.place(pieces[i], start[i].x, start[i].y);
+		}
+		if (!grid.fits(pieces[2], 0, 1) || grid.fits(pieces[2], 1, 0) || grid.fits(pieces[2], 0, 4)) {
+			throw new RuntimeException("cell grid collision check is wrong");
+		}
+
+		// in free mode a piece may be dropped on another one: small 1 is dropped on tall 1 (at (0, 0)),
+		// then moved away again, and tall 1 must still be found in the cells they shared
+		grid.place(pieces[6], 0, 0);
+		if (grid.itemAt(0, 0) != pieces[6] || grid.fits(pieces[2], 0, 0) || grid.fits(pieces[6], 0, 1)) {
+			throw new RuntimeException("cell grid does not handle a piece dropped on another");
+		}
+		grid.place(pieces[6], 1, 3);
+		if (grid.itemAt(0, 0) != pieces[2] || grid.itemAt(0, 1) != pieces[2] || !grid.fits(pieces[2], 0, 1)) {
+			throw new RuntimeException("cell grid lost a piece that was under another");
+		}
+
+		// a piece that is not completely on the board is not in the grid
+		grid.place(pieces[6], -1, 3);
+		if (grid.isPlaced(pieces[6]) || grid.itemAt(1, 3) != null || !grid.isPlaced(pieces[2])) {
+			throw new RuntimeException("cell grid placed a piece that is off the board");
+		}
+
+		System.out.println("cell grid benchmark (" + lookUps + " cells looked up per run)");
+		printTime("rectangle scan", scanTime, lookUps);
+		printTime("cell grid", gridTime, lookUps);
+	}
+}
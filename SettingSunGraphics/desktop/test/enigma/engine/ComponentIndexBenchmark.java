@@ -0,0 +1,102 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+/**
+ * Rejecting unsolvable start states with the component index.
+ */
+class ComponentIndexBenchmark {
+	/**
+	 * Checks the component index against the distance table and against a search from the default
+	 * start, and checks that SettingSun only uses it when asked to. Building the index and looking
+	 * states up are timed separately, then rejecting a start of the largest unsolvable component by
+	 * searching is compared with rejecting it with the index.
+	 */
+	static void run() {
+		int largestUnsolvable = -1;
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			long dataVector = StateIndex.dataVectorOf(rank);
+			int component = ComponentIndex.componentOf(dataVector);
+			if (ComponentIndex.isSolvable(dataVector) != (DistanceTable.distanceOf(dataVector) != DistanceTable.UNSOLVABLE)) {
+				throw new RuntimeException("component index disagrees with the distance table for state " + Long.toHexString(dataVector));
+			}
+			if (!ComponentIndex.isComponentSolvable(component)
+					&& (largestUnsolvable < 0 || ComponentIndex.componentSize(component) > ComponentIndex.componentSize(largestUnsolvable))) {
+				largestUnsolvable = component;
+			}
+		}
+
+		SettingSun solver = new SettingSun();
+		Solvability defaultStart = solver.checkSolvability();
+		if (defaultStart.getComponentSize() != reachableStates(solver.getCurrentState().dataVector).length || defaultStart.getGoalDistance() != chainLength(solver.solvePuzzle()) - 1) {
+			throw new RuntimeException("default start component size or goal distance is wrong");
+		}
+
+		long unsolvableStart = 0;
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			if (ComponentIndex.componentOf(StateIndex.dataVectorOf(rank)) == largestUnsolvable) {
+				unsolvableStart = StateIndex.dataVectorOf(rank);
+				break;
+			}
+		}
+		solver.setRejectUnsolvableStarts(true);
+		solver.setCurrentState(new State(unsolvableStart, null));
+		if (solver.checkSolvability().getStatus() != Solvability.Status.UNSOLVABLE || solver.solvePuzzle() != null || solver.iterationCount != 0) {
+			throw new RuntimeException("unsolvable start was not rejected");
+		}
+		solver.setRejectUnsolvableStarts(false);
+		solver.solvePuzzle();
+		if (solver.iterationCount == 0) {
+			throw new RuntimeException("unsolvable start was rejected without being asked to");
+		}
+
+		// building the index (StateIndex is already built), and answering from it
+		long buildTime = 0;
+		long lookUpTime = 0;
+		int solvable = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			ComponentIndex.buildComponents();
+			long middle = System.nanoTime();
+			for (int rank = 0; rank < StateIndex.size(); ++rank) {
+				if (ComponentIndex.isSolvable(StateIndex.dataVectorOf(rank))) {
+					solvable++;
+				}
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				buildTime += middle - start;
+				lookUpTime += end - middle;
+			}
+		}
+
+		// rejecting one unsolvable start: the search that used to run, and the index
+		long searchTime = 0;
+		long indexTime = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			reachableStates(unsolvableStart);
+			long middle = System.nanoTime();
+			solver.checkSolvability();
+			long finish = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				searchTime += middle - start;
+				indexTime += finish - middle;
+			}
+		}
+
+		System.out.println("component index benchmark (" + ComponentIndex.componentCount() + " components, largest unsolvable has "
+				+ ComponentIndex.componentSize(largestUnsolvable) + " states, " + solvable / (WARM_UP_RUNS + TIMED_RUNS) + " solvable states)");
+		System.out.println(String.format("  %-24s size %d, %d moves to win", "default start", defaultStart.getComponentSize(), defaultStart.getGoalDistance()));
+		printTime("build index", buildTime, 1);
+		printTime("look up (every state)", lookUpTime, StateIndex.size());
+		printTime("reject start, search", searchTime, 1);
+		printTime("reject start, index", indexTime, 1);
+	}
+}
@@ -0,0 +1,87 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Many solves at the same time on a thread pool.
+ */
+class ConcurrentSolveCheck {
+	/**
+	 * Runs hundreds of solves at the same time on a thread pool, each thread holding its own
+	 * SettingSun, and checks every solution against the solution found sequentially from the same
+	 * start state. Half of the solves use the piece objects and half use bitboards.
+	 */
+	static void run() {
+		final int startCount = 40;
+		final int solveCount = 400;
+		final int threads = 8;
+
+		// sequential results for random start states reachable from the default start
+		long[] reachable = reachableStates(new SettingSun().getCurrentState().dataVector);
+		Random rand = new Random(4);
+		final long[] starts = new long[startCount];
+		final long[][] expected = new long[startCount][];
+		SettingSun sequential = new SettingSun();
+		for (int i = 0; i < startCount; ++i) {
+			starts[i] = reachable[rand.nextInt(reachable.length)];
+			sequential.setCurrentState(new State(starts[i], null));
+			expected[i] = chainDataVectors(sequential.solvePuzzle());
+		}
+
+		final ThreadLocal<SettingSun> solvers = new ThreadLocal<SettingSun>() {
+			@Override
+			protected SettingSun initialValue() {
+				return new SettingSun();
+			}
+		};
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		long begin = System.nanoTime();
+		for (int i = 0; i < solveCount; ++i) {
+			final int solve = i;
+			results.add(pool.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					SettingSun solver = solvers.get();
+					int startIndex = solve % startCount;
+					solver.setCurrentState(new State(starts[startIndex], null));
+					State solution = solve % 2 == 0 ? solver.solvePuzzle() : solver.solvePuzzleWithPieces();
+					return Arrays.equals(chainDataVectors(solution), expected[startIndex]);
+				}
+			}));
+		}
+
+		int mismatches = 0;
+		try {
+			for (Future<Boolean> result : results) {
+				if (!result.get()) {
+					mismatches++;
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		long end = System.nanoTime();
+
+		if (mismatches != 0) {
+			throw new RuntimeException(mismatches + " concurrent solutions differ from the sequential solutions");
+		}
+		System.out.println("concurrency stress test (" + solveCount + " solves on " + threads + " threads, all identical to sequential solves)");
+		System.out.println(String.format("  %-24s %8.3f ms", "total", (end - begin) / 1e6));
+	}
+}
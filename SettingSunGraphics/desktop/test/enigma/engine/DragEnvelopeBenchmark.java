@@ -0,0 +1,93 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.LOOK_UPS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Clamping a drag to the drag envelope.
+ */
+class DragEnvelopeBenchmark {
+	/**
+	 * Checks drag envelopes against isValidTransition and times clamping a drag. For every state of
+	 * the default solution and every piece, a neighbouring cell must be in the piece's envelope
+	 * exactly when the single step to it is a valid transition.
+	 */
+	static void run() {
+		SettingSun solver = new SettingSun();
+		State solution = solver.solvePuzzle();
+		DragEnvelope envelope = new DragEnvelope();
+		int[][] offsets = { { 0, -1 }, { 0, 1 }, { -1, 0 }, { 1, 0 } };
+
+		int envelopes = 0;
+		int largest = 0;
+		for (State iter = solution; iter != null; iter = iter.linkedNode) {
+			solver.setCurrentState(iter);
+			Point[] points = { iter.getSunPoint(), iter.getWidePoint(), iter.getTall1(), iter.getTall2(), iter.getTall3(), iter.getTall4(),
+					iter.getSmall1(), iter.getSmall2(), iter.getSmall3(), iter.getSmall4() };
+			for (Point from : points) {
+				if (!solver.computeDragEnvelope(from, envelope)) {
+					throw new RuntimeException("no piece found for a drag envelope");
+				}
+				envelopes++;
+				largest = Math.max(largest, Integer.bitCount(envelope.getReachableCells()));
+				for (int[] offset : offsets) {
+					Point to = new Point(from.x + offset[0], from.y + offset[1]);
+					boolean inEnvelope = to.x >= 0 && to.x < Bitboard.COLUMNS && to.y >= 0 && to.y < Bitboard.ROWS && envelope.isReachable(to.x, to.y);
+					if (inEnvelope != solver.isValidTransition(from, to)) {
+						throw new RuntimeException("drag envelope disagrees with isValidTransition");
+					}
+				}
+			}
+		}
+
+		// in the default start small 1 is blocked, and the tall piece at (0, 3) can only move up one
+		// cell, unless tall 1 (at (0, 0)) takes the blank cell first
+		solver.setCurrentState(solution);
+		solver.computeDragEnvelope(solution.getSmall1(), envelope);
+		if (envelope.getReachableCells() != 1 << Bitboard.cellOf(1, 3)) {
+			throw new RuntimeException("a blocked piece has a drag envelope");
+		}
+		solver.setTall1Point(new Point(0, 1));
+		solver.computeDragEnvelope(new Point(0, 3), envelope);
+		Vector2 clamped = envelope.clamp(0, 3, 0.2f, 1.6f, new Vector2());
+		if (clamped.x != 0 || clamped.y != 3) {
+			throw new RuntimeException("a drag was not clamped to the envelope");
+		}
+		solver.setTall1Point(new Point(0, 0));
+		solver.computeDragEnvelope(new Point(0, 3), envelope);
+		clamped = envelope.clamp(0, 3, 0.2f, 1.6f, clamped);
+		if (clamped.x != 0 || clamped.y != 2) {
+			throw new RuntimeException("a drag was not clamped to the envelope");
+		}
+
+		// a piece that is (partly) off the board is not pulled onto it
+		clamped = envelope.clamp(-1, 3, 0.2f, 2, clamped);
+		if (clamped.x != -1 || clamped.y != 3) {
+			throw new RuntimeException("a drag off the board was clamped onto the board");
+		}
+
+		// a drag of tall 1 in the default start, one pointer event per op
+		solver.computeDragEnvelope(solution.getTall1(), envelope);
+		long time = 0;
+		float x = 0;
+		float y = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (int i = 0; i < LOOK_UPS; ++i) {
+				envelope.clamp(x, y, (i & 7) * 0.5f, (i & 3) * 0.5f, clamped);
+				x = clamped.x;
+				y = clamped.y;
+			}
+			if (run >= WARM_UP_RUNS) {
+				time += System.nanoTime() - start;
+			}
+		}
+
+		System.out.println("drag envelope benchmark (" + envelopes + " envelopes checked, largest has " + largest + " cells)");
+		printTime("clamp", time, LOOK_UPS);
+	}
+}
@@ -0,0 +1,122 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+/**
+ * Checking a drag with the occupancy model.
+ */
+class DragValidationBenchmark {
+	/**
+	 * Compares drag validation with the occupancy model against the old version, which searched the
+	 * pieces for the dragged piece and rebuilt the occupied cells for every check. Every state of the
+	 * default solution is loaded into the solver, and every piece is checked in every direction; the
+	 * number of valid transitions must match the number of successors of the state.
+	 */
+	static void run() {
+		SettingSun solver = new SettingSun();
+		State solution = solver.solvePuzzle();
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		Point[] directionOffsets = { new Point(0, -1), new Point(0, 1), new Point(-1, 0), new Point(1, 0) };
+		int[] shapes = { Bitboard.SHAPE_SUN, Bitboard.SHAPE_WIDE, Bitboard.SHAPE_TALL, Bitboard.SHAPE_TALL, Bitboard.SHAPE_TALL,
+				Bitboard.SHAPE_TALL, Bitboard.SHAPE_SMALL, Bitboard.SHAPE_SMALL, Bitboard.SHAPE_SMALL, Bitboard.SHAPE_SMALL };
+
+		long legacyTime = 0;
+		long modelTime = 0;
+		int checks = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			checks = 0;
+			for (State iter = solution; iter != null; iter = iter.linkedNode) {
+				solver.setCurrentState(iter);
+				if (solver.getOccupancy() != Bitboard.occupancy(iter.dataVector)) {
+					throw new RuntimeException("occupancy model does not match the state");
+				}
+
+				Point[] points = { iter.getSunPoint(), iter.getWidePoint(), iter.getTall1(), iter.getTall2(), iter.getTall3(), iter.getTall4(),
+						iter.getSmall1(), iter.getSmall2(), iter.getSmall3(), iter.getSmall4() };
+				int legacyValid = 0;
+				int modelValid = 0;
+
+				Point[] targets = new Point[points.length * directionOffsets.length];
+				for (int i = 0; i < targets.length; ++i) {
+					Point from = points[i / directionOffsets.length];
+					Point offset = directionOffsets[i % directionOffsets.length];
+					targets[i] = new Point(from.x + offset.x, from.y + offset.y);
+				}
+
+				long start = System.nanoTime();
+				for (int i = 0; i < targets.length; ++i) {
+					if (legacyIsValidTransition(points, shapes, points[i / directionOffsets.length], targets[i])) {
+						legacyValid++;
+					}
+				}
+				long middle = System.nanoTime();
+				for (int i = 0; i < targets.length; ++i) {
+					if (solver.isValidTransition(points[i / directionOffsets.length], targets[i])) {
+						modelValid++;
+					}
+				}
+				long end = System.nanoTime();
+
+				int count = generator.generate(iter.dataVector, successors, null);
+				if (legacyValid != count || modelValid != count) {
+					throw new RuntimeException("drag validation disagrees with the move generator");
+				}
+				checks += targets.length;
+				if (run >= WARM_UP_RUNS) {
+					legacyTime += middle - start;
+					modelTime += end - middle;
+				}
+			}
+		}
+
+		// moving pieces with the setters (as the GUI does) must keep the model in step
+		// (small 1 is dropped off the board, then on top of tall 1, which must still be found after)
+		solver.setCurrentState(solution);
+		solver.setSmall1Point(new Point(-1, -1));
+		solver.setSmall1Point(solution.getTall1());
+		solver.setSmall1Point(solution.getSmall1());
+		if (solver.getOccupancy() != Bitboard.occupancy(solution.dataVector) || !solver.isValidTransition(solution.getTall1(), new Point(0, 1))) {
+			throw new RuntimeException("occupancy model is out of step with the setters");
+		}
+
+		System.out.println("drag validation benchmark (" + checks + " checks per run)");
+		printTime("piece scan", legacyTime, checks);
+		printTime("occupancy model", modelTime, checks);
+	}
+
+	/**
+	 * The old SettingSun.isValidTransition: a linear search for the piece and a rebuild of the
+	 * occupied cells on every call.
+	 */
+	private static boolean legacyIsValidTransition(Point[] points, int[] shapes, Point originalPoint, Point newPoint) {
+		int piece = -1;
+		for (int i = 0; i < points.length; ++i) {
+			if (points[i].equals(originalPoint)) {
+				piece = i;
+				break;
+			}
+		}
+		if (piece < 0) {
+			return false;
+		}
+
+		Direction direction;
+		if (originalPoint.x != newPoint.x && originalPoint.y == newPoint.y) {
+			direction = originalPoint.x < newPoint.x ? Direction.RIGHT : Direction.LEFT;
+		} else if (originalPoint.y != newPoint.y && originalPoint.x == newPoint.x) {
+			direction = originalPoint.y < newPoint.y ? Direction.DOWN : Direction.UP;
+		} else {
+			return false;
+		}
+
+		int occupied = 0;
+		for (int i = 0; i < points.length; ++i) {
+			occupied |= Bitboard.shapeMask(shapes[i], Bitboard.cellOf(points[i].x, points[i].y));
+		}
+		int entry = MoveTable.entryOf(shapes[piece], Bitboard.cellOf(originalPoint.x, originalPoint.y), direction.ordinal());
+		return MoveTable.isValid(entry) && (MoveTable.entering(entry) & occupied) == 0;
+	}
+}
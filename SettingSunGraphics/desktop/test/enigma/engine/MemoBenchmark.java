@@ -0,0 +1,92 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.LOOK_UPS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * The memo of visited states: TreeSet<Long> against LongHashSet.
+ */
+class MemoBenchmark {
+	// values chosen to resemble a full solve: ~36,000 distinct states, each looked up several times
+	private static final int DISTINCT_KEYS = 36000;
+
+	/**
+	 * Compares the old TreeSet<Long> memo with the LongHashSet memo. The key stream follows the
+	 * pattern of the solver: keys are looked up and only inserted if they have not been seen.
+	 */
+	static void run() {
+		long[] stream = createKeyStream(new Random(1));
+
+		long treeTime = 0;
+		long hashTime = 0;
+		int treeVisited = 0;
+		int hashVisited = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			treeVisited = runTreeSet(stream);
+			long middle = System.nanoTime();
+			hashVisited = runLongHashSet(stream);
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				treeTime += middle - start;
+				hashTime += end - middle;
+			}
+		}
+
+		if (treeVisited != hashVisited) {
+			throw new RuntimeException("memo implementations disagree on the number of visited keys");
+		}
+
+		System.out.println("memo benchmark (" + LOOK_UPS + " look ups, " + hashVisited + " distinct keys)");
+		printTime("TreeSet<Long>", treeTime, LOOK_UPS);
+		printTime("LongHashSet", hashTime, LOOK_UPS);
+	}
+
+	private static int runTreeSet(long[] stream) {
+		TreeSet<Long> memo = new TreeSet<Long>();
+		for (long key : stream) {
+			if (!memo.contains(key)) {
+				memo.add(key);
+			}
+		}
+		return memo.size();
+	}
+
+	private static int runLongHashSet(long[] stream) {
+		LongHashSet memo = new LongHashSet(1 << 16);
+		for (long key : stream) {
+			memo.add(key);
+		}
+		return memo.size();
+	}
+
+	/**
+	 * Builds a stream of 60 bit keys (the size of a data vector) where keys are introduced over
+	 * time and earlier keys are revisited, similar to the order in which a breadth first search
+	 * finds states.
+	 *
+	 * @param rand
+	 *            random number generator used to build the keys.
+	 * @return the key stream
+	 */
+	private static long[] createKeyStream(Random rand) {
+		long[] distinct = new long[DISTINCT_KEYS];
+		for (int i = 0; i < distinct.length; ++i) {
+			distinct[i] = rand.nextLong() >>> 4;
+		}
+
+		long[] stream = new long[LOOK_UPS];
+		for (int i = 0; i < stream.length; ++i) {
+			// only keys that have been "discovered" so far can be chosen
+			int discovered = 1 + (int) ((long) i * DISTINCT_KEYS / LOOK_UPS);
+			stream[i] = distinct[discovered - 1 - rand.nextInt(Math.min(discovered, 64))];
+		}
+		return stream;
+	}
+}
@@ -0,0 +1,102 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+/**
+ * Move generation: piece objects against bitboards, and every piece against the empty cells.
+ */
+class MoveGeneratorBenchmark {
+	static void run() {
+		benchmarkMoveGeneration();
+		benchmarkSuccessorGeneration();
+	}
+
+	/**
+	 * Compares full solves using the bitboard move generation against the original piece object
+	 * move generation. Times are reported per expanded state.
+	 */
+	private static void benchmarkMoveGeneration() {
+		long pieceTime = 0;
+		long bitboardTime = 0;
+		int expanded = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			// a new solver is used for every run since solving moves the solver's piece objects
+			SettingSun pieceSolver = new SettingSun();
+			SettingSun bitboardSolver = new SettingSun();
+
+			long start = System.nanoTime();
+			pieceSolver.solvePuzzleWithPieces();
+			long middle = System.nanoTime();
+			bitboardSolver.solvePuzzle();
+			long end = System.nanoTime();
+
+			if (pieceSolver.iterationCount != bitboardSolver.iterationCount) {
+				throw new RuntimeException("move generators expanded a different number of states");
+			}
+			expanded = bitboardSolver.iterationCount;
+			if (run >= WARM_UP_RUNS) {
+				pieceTime += middle - start;
+				bitboardTime += end - middle;
+			}
+		}
+
+		System.out.println("move generation benchmark (" + expanded + " expanded states per solve)");
+		printTime("piece objects", pieceTime, expanded);
+		printTime("bitboard", bitboardTime, expanded);
+	}
+
+	/**
+	 * Compares the empty cell driven successor generation with checking every piece in every
+	 * direction. Every state reachable from the start state is expanded with both generators, and
+	 * the two must produce identical successors.
+	 */
+	private static void benchmarkSuccessorGeneration() {
+		long[] reachable = reachableStates(new SettingSun().getCurrentState().dataVector);
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		long[] referenceSuccessors = new long[MoveGenerator.MAX_SUCCESSORS];
+
+		// check that both generators agree
+		MoveGenerator generator = new MoveGenerator();
+		MoveGenerator reference = new MoveGenerator();
+		for (long dataVector : reachable) {
+			int count = generator.generate(dataVector, successors, null);
+			int referenceCount = reference.generateAll(dataVector, referenceSuccessors, null);
+			if (count != referenceCount) {
+				throw new RuntimeException("successor count differs for state " + Long.toHexString(dataVector));
+			}
+			for (int i = 0; i < count; ++i) {
+				if (successors[i] != referenceSuccessors[i]) {
+					throw new RuntimeException("successors differ for state " + Long.toHexString(dataVector));
+				}
+			}
+		}
+
+		long allTime = 0;
+		long emptyCellTime = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (long dataVector : reachable) {
+				reference.generateAll(dataVector, referenceSuccessors, null);
+			}
+			long middle = System.nanoTime();
+			for (long dataVector : reachable) {
+				generator.generate(dataVector, successors, null);
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				allTime += middle - start;
+				emptyCellTime += end - middle;
+			}
+		}
+
+		System.out.println("successor generation benchmark (" + reachable.length + " reachable states, identical successors)");
+		System.out.println(String.format("  probes per state: all pieces %.2f, empty cells %.2f", reference.probeCount / (double) reachable.length / (WARM_UP_RUNS + TIMED_RUNS + 1),
+				generator.probeCount / (double) reachable.length / (WARM_UP_RUNS + TIMED_RUNS + 1)));
+		printTime("all pieces", allTime, reachable.length);
+		printTime("empty cells", emptyCellTime, reachable.length);
+	}
+}
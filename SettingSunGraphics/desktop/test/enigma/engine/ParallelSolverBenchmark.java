@@ -0,0 +1,51 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+
+/**
+ * The parallel solver with different numbers of threads.
+ */
+class ParallelSolverBenchmark {
+	/**
+	 * Reports the speed up of the parallel solver with 1, 2, 4, 8 and 16 threads. Every solution
+	 * must have the same number of moves as the sequential solver's solution. The runs of the
+	 * different thread counts are interleaved, so every thread count gets the same warm up and no
+	 * thread count is timed while the JIT is still compiling the search.
+	 */
+	static void run() {
+		SettingSun sequential = new SettingSun();
+		State start = sequential.getCurrentState();
+		int expectedLength = chainLength(sequential.solvePuzzle());
+
+		int[] threadCounts = { 1, 2, 4, 8, 16 };
+		ParallelSolver[] solvers = new ParallelSolver[threadCounts.length];
+		long[] times = new long[threadCounts.length];
+		for (int i = 0; i < threadCounts.length; ++i) {
+			solvers[i] = new ParallelSolver(threadCounts[i]);
+		}
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			for (int i = 0; i < solvers.length; ++i) {
+				long begin = System.nanoTime();
+				State solution = solvers[i].solvePuzzle(start);
+				long end = System.nanoTime();
+
+				if (chainLength(solution) != expectedLength) {
+					throw new RuntimeException("parallel solution length differs from the sequential solver");
+				}
+				if (run >= WARM_UP_RUNS) {
+					times[i] += end - begin;
+				}
+			}
+		}
+
+		System.out.println("parallel solver benchmark (" + Runtime.getRuntime().availableProcessors() + " available processors)");
+		for (int i = 0; i < solvers.length; ++i) {
+			solvers[i].shutdown();
+			printTime(threadCounts[i] + " thread(s)", times[i], solvers[i].getExpandedCount());
+			System.out.println(String.format("  %-24s %8.2fx", "speed up", times[0] / (double) times[i]));
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.LOOK_UPS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compact solutions.
+ */
+class SolutionBenchmark {
+	/**
+	 * Checks compact solutions against the linked lists of states they were made from, and compares
+	 * getting a step of a solution by random access with walking the linked list to it.
+	 */
+	static void run() {
+		final int startCount = 16;
+		long[] reachable = reachableStates(new SettingSun().getCurrentState().dataVector);
+		Random rand = new Random(24);
+		SettingSun solver = new SettingSun();
+		State[] chains = new State[startCount];
+		Solution[] solutions = new Solution[startCount];
+		int states = 0;
+		int bytes = 0;
+		for (int i = 0; i < startCount; ++i) {
+			// the first start is the default start
+			if (i > 0) {
+				solver.setCurrentState(new State(reachable[rand.nextInt(reachable.length)], null));
+			}
+			chains[i] = solver.solvePuzzle();
+			solutions[i] = Solution.fromStates(chains[i]);
+
+			long[] expected = chainDataVectors(chains[i]);
+			if (solutions[i].getLength() != expected.length - 1 || !Arrays.equals(chainDataVectors(solutions[i].toStates()), expected)) {
+				throw new RuntimeException("compact solution differs from its states");
+			}
+			for (int step = 0; step < expected.length; ++step) {
+				if (solutions[i].getDataVector(step) != expected[step]) {
+					throw new RuntimeException("random access to step " + step + " is wrong");
+				}
+			}
+
+			byte[] written = solutions[i].toBytes();
+			if (!Arrays.equals(Solution.fromBytes(written).toBytes(), written)) {
+				throw new RuntimeException("solution bytes do not round trip");
+			}
+			states += expected.length;
+			bytes += written.length;
+		}
+
+		// damaged bytes are rejected: a cut off solution, and a move into an occupied cell
+		byte[] damaged = solutions[0].toBytes();
+		expectRejected(Arrays.copyOf(damaged, damaged.length - 1));
+		damaged[8] = (byte) MoveGenerator.moveOf(State.sunIndex, Direction.DOWN.ordinal());
+		expectRejected(damaged);
+
+		checkLegality(rand);
+
+		System.out.println("compact solution benchmark (" + startCount + " solutions, " + states + " states in " + bytes + " bytes)");
+		timeAccess(chains, solutions);
+
+		// long solutions: a random walk of thousands of moves followed by a solution from its end
+		final int longCount = 4;
+		final int walkLength = 4000;
+		State[] longChains = new State[longCount];
+		Solution[] longSolutions = new Solution[longCount];
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		states = 0;
+		for (int i = 0; i < longCount; ++i) {
+			longChains[i] = new State(new SettingSun().getCurrentState().dataVector, null);
+			State last = longChains[i];
+			for (int step = 0; step < walkLength; ++step) {
+				int count = generator.generate(last.dataVector, successors, null);
+				last.linkedNode = new State(successors[rand.nextInt(count)], null);
+				last = last.linkedNode;
+			}
+			solver.setCurrentState(new State(last.dataVector, null));
+			last.linkedNode = solver.solvePuzzle().linkedNode;
+			longSolutions[i] = Solution.fromStates(longChains[i]);
+			if (!Arrays.equals(chainDataVectors(longSolutions[i].toStates()), chainDataVectors(longChains[i]))) {
+				throw new RuntimeException("long compact solution differs from its states");
+			}
+			Solution.fromBytes(longSolutions[i].toBytes());
+			states += longSolutions[i].getLength() + 1;
+		}
+		System.out.println("long solutions (" + longCount + " solutions, " + states + " states)");
+		timeAccess(longChains, longSolutions);
+	}
+
+	/**
+	 * Compares getting random steps of the solutions by random access with walking the linked lists
+	 * of states to them.
+	 */
+	private static void timeAccess(State[] chains, Solution[] solutions) {
+		int[] solutionOfLookUp = new int[LOOK_UPS];
+		int[] stepOfLookUp = new int[LOOK_UPS];
+		Random rand = new Random(25);
+		for (int i = 0; i < LOOK_UPS; ++i) {
+			solutionOfLookUp[i] = rand.nextInt(solutions.length);
+			stepOfLookUp[i] = rand.nextInt(solutions[solutionOfLookUp[i]].getLength() + 1);
+		}
+
+		long walkTime = 0;
+		long accessTime = 0;
+		long sum = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (int i = 0; i < LOOK_UPS; ++i) {
+				State iter = chains[solutionOfLookUp[i]];
+				for (int step = stepOfLookUp[i]; step > 0; --step) {
+					iter = iter.linkedNode;
+				}
+				sum += iter.dataVector;
+			}
+			long middle = System.nanoTime();
+			for (int i = 0; i < LOOK_UPS; ++i) {
+				sum -= solutions[solutionOfLookUp[i]].getDataVector(stepOfLookUp[i]);
+			}
+			long end = System.nanoTime();
+
+			if (sum != 0) {
+				throw new RuntimeException("random access disagrees with the linked list");
+			}
+			if (run >= WARM_UP_RUNS) {
+				walkTime += middle - start;
+				accessTime += end - middle;
+			}
+		}
+		printTime("walk linked states", walkTime, LOOK_UPS);
+		printTime("random access", accessTime, LOOK_UPS);
+	}
+
+	/**
+	 * Checks that Bitboard.isLegal accepts exactly the configurations numbered by StateIndex, for
+	 * every configuration and for configurations with a single piece moved to a random field.
+	 */
+	private static void checkLegality(Random rand) {
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			long dataVector = StateIndex.dataVectorOf(rank);
+			if (!Bitboard.isLegal(dataVector)) {
+				throw new RuntimeException("legal configuration rejected");
+			}
+			int shift = 6 * rand.nextInt(10);
+			long changed = (dataVector & ~(63L << shift)) | ((long) rand.nextInt(64) << shift);
+			if (Bitboard.isLegal(changed) != (StateIndex.rankOf(changed) >= 0)) {
+				throw new RuntimeException("legality check disagrees with the state index");
+			}
+			if (Bitboard.isLegal(dataVector | (1L << 60))) {
+				throw new RuntimeException("configuration with high bits set accepted");
+			}
+		}
+	}
+
+	private static void expectRejected(byte[] bytes) {
+		try {
+			Solution.fromBytes(bytes);
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+		throw new RuntimeException("damaged solution bytes were accepted");
+	}
+}
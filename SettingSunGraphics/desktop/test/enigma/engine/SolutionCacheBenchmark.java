@@ -0,0 +1,105 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+import static enigma.engine.BenchmarkSupport.reachableStates;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * The two tiers of the solution cache.
+ */
+class SolutionCacheBenchmark {
+	/**
+	 * Checks the two tiers of the solution cache and compares answering from the cache with
+	 * searching. The second tier is a map standing in for a store on disk, and a new cache is created
+	 * part way through to simulate a restart of the game.
+	 */
+	static void run() {
+		final int startCount = 12;
+		final int capacity = 4;
+		long[] reachable = reachableStates(new SettingSun().getCurrentState().dataVector);
+		Random rand = new Random(6);
+		long[] starts = new long[startCount];
+		long[][] expected = new long[startCount][];
+		SettingSun solver = new SettingSun();
+		for (int i = 0; i < startCount; ++i) {
+			starts[i] = reachable[rand.nextInt(reachable.length)];
+			solver.setCurrentState(new State(starts[i], null));
+			expected[i] = chainDataVectors(solver.solvePuzzle());
+		}
+
+		// the store keeps the bytes of each solution, as a file would
+		final HashMap<Long, byte[]> disk = new HashMap<Long, byte[]>();
+		SolutionStore store = new SolutionStore() {
+			@Override
+			public Solution load(long startKey) {
+				byte[] bytes = disk.get(startKey);
+				return bytes != null ? Solution.fromBytes(bytes) : null;
+			}
+
+			@Override
+			public void save(Solution solution) {
+				disk.put(solution.getStartKey(), solution.toBytes());
+			}
+		};
+
+		// first run: every start is searched once, then answered from the store, and the most
+		// recently used starts are answered from memory
+		solver.setSolutionCache(new SolutionCache(capacity, store));
+		checkCachedSolves(solver, starts, expected, 0);
+		checkCachedSolves(solver, starts, expected, 0);
+		checkCachedSolves(solver, starts, expected, startCount - capacity);
+		SolutionCache cache = solver.getSolutionCache();
+		if (cache.getMissCount() != startCount || cache.getHitCount() != capacity || cache.getEvictionCount() != 2 * startCount - capacity) {
+			throw new RuntimeException("unexpected cache counters");
+		}
+		System.out.println("solution cache benchmark (" + startCount + " starts, " + capacity + " in memory)");
+		System.out.println(String.format("  %-24s hits %d, store hits %d, misses %d, evictions %d", "first run", cache.getHitCount(), cache.getStoreHitCount(), cache.getMissCount(),
+				cache.getEvictionCount()));
+
+		// restart: nothing is in memory, but every solution is in the store
+		solver.setSolutionCache(new SolutionCache(capacity, store));
+		checkCachedSolves(solver, starts, expected, 0);
+		cache = solver.getSolutionCache();
+		if (cache.getMissCount() != 0) {
+			throw new RuntimeException("solutions were searched for after a restart");
+		}
+		System.out.println(String.format("  %-24s hits %d, store hits %d, misses %d, evictions %d", "after restart", cache.getHitCount(), cache.getStoreHitCount(),
+				cache.getMissCount(), cache.getEvictionCount()));
+
+		// time the default start: searched every time vs answered from memory
+		SettingSun searching = new SettingSun();
+		SettingSun caching = new SettingSun();
+		caching.setSolutionCache(new SolutionCache(capacity));
+		long searchTime = 0;
+		long cacheTime = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			searching.solvePuzzle();
+			long middle = System.nanoTime();
+			caching.solvePuzzle();
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				searchTime += middle - start;
+				cacheTime += end - middle;
+			}
+		}
+		printTime("default start, search", searchTime, 1);
+		printTime("default start, cached", cacheTime, 1);
+	}
+
+	private static void checkCachedSolves(SettingSun solver, long[] starts, long[][] expected, int from) {
+		for (int i = from; i < starts.length; ++i) {
+			solver.setCurrentState(new State(starts[i], null));
+			if (!Arrays.equals(chainDataVectors(solver.solvePuzzle()), expected[i])) {
+				throw new RuntimeException("cached solution differs for state " + Long.toHexString(starts[i]));
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+
+import java.util.Random;
+
+/**
+ * Jumping between the steps of a solution.
+ */
+class SolutionTimelineBenchmark {
+	/**
+	 * Compares jumping to random steps of the default solution with a SolutionTimeline against the
+	 * old way of stepping through the linked list, where every step passed through decodes all ten
+	 * piece positions. With the timeline, only the pieces that changed are decoded, and they must be
+	 * enough to rebuild the target state.
+	 */
+	static void run() {
+		State chain = new SettingSun().solvePuzzle();
+		SolutionTimeline timeline = new SolutionTimeline(Solution.fromStates(chain));
+		long[] expected = chainDataVectors(chain);
+		int jumps = 2000;
+		int[] targets = new int[jumps];
+		Random rand = new Random(25);
+		for (int i = 0; i < jumps; ++i) {
+			targets[i] = rand.nextInt(expected.length);
+		}
+
+		long walkTime = 0;
+		long timelineTime = 0;
+		int repositioned = 0;
+		int decoded = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			// the old way: walk forward from the current state, or back from the start
+			long start = System.nanoTime();
+			State current = chain;
+			int currentStep = 0;
+			for (int target : targets) {
+				if (target < currentStep) {
+					current = chain;
+					currentStep = 0;
+				}
+				while (currentStep < target) {
+					current = current.linkedNode;
+					currentStep++;
+					decoded += decodeAllPoints(current);
+				}
+			}
+			long middle = System.nanoTime();
+
+			// the timeline: one seek, then only the changed pieces are decoded and "repositioned"
+			timeline.seek(0);
+			long shown = timeline.getDataVector(0);
+			for (int target : targets) {
+				int changed = timeline.seek(target);
+				long dataVector = timeline.getDataVector(target);
+				for (; changed != 0; changed &= changed - 1) {
+					int shift = 6 * Integer.numberOfTrailingZeros(changed);
+					shown = (shown & ~(63L << shift)) | (dataVector & (63L << shift));
+					repositioned++;
+				}
+				if (shown != expected[target]) {
+					throw new RuntimeException("timeline seek did not reach step " + target);
+				}
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				walkTime += middle - start;
+				timelineTime += end - middle;
+			}
+		}
+
+		int runs = WARM_UP_RUNS + TIMED_RUNS;
+		System.out.println(String.format("solution timeline benchmark (%d random jumps; %.1f pieces decoded per jump before, %.1f after)", jumps,
+				decoded / (double) (runs * jumps), repositioned / (double) (runs * jumps)));
+		printTime("walk linked states", walkTime, jumps);
+		printTime("timeline seek", timelineTime, jumps);
+	}
+
+	/**
+	 * Decodes every piece position of a state, as positionSpritesToState does.
+	 */
+	private static int decodeAllPoints(State state) {
+		Point[] points = { state.getSunPoint(), state.getWidePoint(), state.getTall1(), state.getTall2(), state.getTall3(), state.getTall4(),
+				state.getSmall1(), state.getSmall2(), state.getSmall3(), state.getSmall4() };
+		return points.length;
+	}
+}
@@ -0,0 +1,70 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+import static enigma.engine.BenchmarkSupport.firstUnsolvableState;
+
+/**
+ * Deadlines, node budgets and cancellation of a solve.
+ */
+class SolveLimitsBenchmark {
+	/**
+	 * Checks every way a limited solve can end, and compares the time of an unlimited solve with a
+	 * solve whose limits are checked but never reached.
+	 */
+	static void run() {
+		SettingSun solver = new SettingSun();
+		int expectedMoves = chainLength(solver.solvePuzzle()) - 1;
+
+		SolveResult solved = solver.solvePuzzle(System.currentTimeMillis() + 60000, SettingSun.NO_LIMIT, new CancellationToken());
+		if (solved.getStatus() != SolveResult.Status.SOLVED || solved.getDepthReached() != expectedMoves) {
+			throw new RuntimeException("limited solve did not find the solution");
+		}
+
+		SolveResult budget = solver.solvePuzzle(SettingSun.NO_DEADLINE, 1000, null);
+		if (budget.getStatus() != SolveResult.Status.BUDGET_EXHAUSTED || budget.getExpandedCount() != 1000 || budget.getSolution() != null) {
+			throw new RuntimeException("node budget was not respected");
+		}
+
+		SolveResult late = solver.solvePuzzle(System.currentTimeMillis() - 1, SettingSun.NO_LIMIT, null);
+		if (late.getStatus() != SolveResult.Status.BUDGET_EXHAUSTED || late.getExpandedCount() > SettingSun.LIMIT_CHECK_INTERVAL) {
+			throw new RuntimeException("deadline was not respected");
+		}
+
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		SolveResult cancelled = solver.solvePuzzle(SettingSun.NO_DEADLINE, SettingSun.NO_LIMIT, token);
+		if (cancelled.getStatus() != SolveResult.Status.CANCELLED || cancelled.getExpandedCount() > SettingSun.LIMIT_CHECK_INTERVAL) {
+			throw new RuntimeException("cancellation was not respected");
+		}
+
+		SettingSun unsolvable = new SettingSun();
+		unsolvable.setCurrentState(new State(firstUnsolvableState(), null));
+		if (unsolvable.solvePuzzle(SettingSun.NO_DEADLINE, SettingSun.NO_LIMIT, null).getStatus() != SolveResult.Status.UNSOLVABLE) {
+			throw new RuntimeException("unsolvable start was not reported");
+		}
+
+		long unlimitedTime = 0;
+		long limitedTime = 0;
+		int expanded = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			solver.solvePuzzle();
+			long middle = System.nanoTime();
+			expanded = solver.solvePuzzle(System.currentTimeMillis() + 60000, 1 << 20, new CancellationToken()).getExpandedCount();
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				unlimitedTime += middle - start;
+				limitedTime += end - middle;
+			}
+		}
+
+		System.out.println("solve limits benchmark (budget: " + budget.getDepthReached() + " moves reached after 1000 states; deadline: " + late.getExpandedCount()
+				+ " states; cancelled: " + cancelled.getExpandedCount() + " states)");
+		printTime("no limits", unlimitedTime, expanded);
+		printTime("limits checked", limitedTime, expanded);
+	}
+}
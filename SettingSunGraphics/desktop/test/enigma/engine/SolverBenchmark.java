@@ -0,0 +1,39 @@
+package enigma.engine;
+
+/**
+ * Runs the benchmarks and checks of the solver and of the data structures used by the GUI, one
+ * component after another. Every check throws a RuntimeException when a result is wrong, so the run
+ * stops at the first failure.
+ *
+ * This is a desktop only utility, it is not shipped with the game (run it with the desktop
+ * project's benchmark task).
+ */
+public class SolverBenchmark {
+	/**
+	 * Runs every benchmark and prints the results.
+	 *
+	 * @param args
+	 *            command line arguments (unused)
+	 */
+	public static void main(String[] args) {
+		MemoBenchmark.run();
+		MoveGeneratorBenchmark.run();
+		ParallelSolverBenchmark.run();
+		BidirectionalSearchBenchmark.run();
+		SymmetryBenchmark.run();
+		CanonicalizationBenchmark.run();
+		TypeMaskKeyBenchmark.run();
+		ConcurrentSolveCheck.run();
+		BatchSolverBenchmark.run();
+		SolutionCacheBenchmark.run();
+		ComponentIndexBenchmark.run();
+		SolveLimitsBenchmark.run();
+		SteppedSolverBenchmark.run();
+		BackgroundSolveCheck.run();
+		DragValidationBenchmark.run();
+		DragEnvelopeBenchmark.run();
+		CellGridBenchmark.run();
+		SolutionBenchmark.run();
+		SolutionTimelineBenchmark.run();
+	}
+}
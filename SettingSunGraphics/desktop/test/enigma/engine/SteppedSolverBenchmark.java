@@ -0,0 +1,69 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.chainDataVectors;
+
+import java.util.Arrays;
+
+/**
+ * Solving in time slices.
+ */
+class SteppedSolverBenchmark {
+	/**
+	 * Solves the default start in time slices of different sizes. Every split must find the same
+	 * solution as solvePuzzle. The median step, the 99th percentile and the longest step show how far
+	 * a step runs past its budget; the longest also includes any time the thread was paused (see
+	 * SteppedSolver). The last step, which builds the solution, is reported on its own.
+	 */
+	static void run() {
+		SettingSun solver = new SettingSun();
+		State start = solver.getCurrentState();
+		long[] expected = chainDataVectors(solver.solvePuzzle());
+
+		System.out.println("stepped solver benchmark (default start)");
+		long[] budgets = { 0L, 100000L, 1000000L, 4000000L };
+		SteppedSolver stepped = new SteppedSolver();
+		for (long budget : budgets) {
+			long[] times = new long[1 << 12];
+			int timed = 0;
+			int steps = 0;
+			long longestLastStep = 0;
+			long total = 0;
+			for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+				steps = 0;
+				stepped.start(start);
+				boolean finished = false;
+				while (!finished) {
+					long begin = System.nanoTime();
+					finished = stepped.step(budget);
+					long end = System.nanoTime();
+					steps++;
+					if (run >= WARM_UP_RUNS) {
+						if (timed == times.length) {
+							times = Arrays.copyOf(times, timed * 2);
+						}
+						times[timed++] = end - begin;
+						total += end - begin;
+						if (finished) {
+							longestLastStep = Math.max(longestLastStep, end - begin);
+						}
+					}
+				}
+				if (!Arrays.equals(chainDataVectors(stepped.getResult().getSolution()), expected)) {
+					throw new RuntimeException("stepped solution differs from solvePuzzle");
+				}
+			}
+			Arrays.sort(times, 0, timed);
+			System.out.println(String.format("  budget %5.2f ms: %4d steps, step median %6.3f ms, 99%% %6.3f ms, longest %6.3f ms, last %6.3f ms, %8.3f ms/run",
+					budget / 1e6, steps, times[timed / 2] / 1e6, times[timed * 99 / 100] / 1e6, times[timed - 1] / 1e6, longestLastStep / 1e6,
+					total / 1e6 / TIMED_RUNS));
+		}
+		stepped.start(start);
+		stepped.step(100000L);
+		stepped.cancel();
+		if (stepped.isRunning() || stepped.getResult().getStatus() != SolveResult.Status.CANCELLED) {
+			throw new RuntimeException("stepped solve was not cancelled");
+		}
+	}
+}
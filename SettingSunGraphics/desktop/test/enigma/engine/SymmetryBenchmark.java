@@ -0,0 +1,55 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+import static enigma.engine.BenchmarkSupport.chainLength;
+import static enigma.engine.BenchmarkSupport.checkMoves;
+
+/**
+ * Solves with and without the mirror symmetry reduction.
+ */
+class SymmetryBenchmark {
+	/**
+	 * Compares solves with and without the mirror symmetry reduction. Mirroring must map every legal
+	 * configuration to a legal configuration, and the reduced solve must find a solution of the same
+	 * length made of legal moves.
+	 */
+	static void run() {
+		for (int rank = 0; rank < StateIndex.size(); ++rank) {
+			long dataVector = StateIndex.dataVectorOf(rank);
+			long mirrored = Symmetry.mirror(dataVector);
+			if (StateIndex.rankOf(mirrored) < 0 || Symmetry.mirror(mirrored) != dataVector) {
+				throw new RuntimeException("mirror of state " + Long.toHexString(dataVector) + " is not legal");
+			}
+		}
+
+		long plainTime = 0;
+		long symmetryTime = 0;
+		int plainExpanded = 0;
+		int symmetryExpanded = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			SettingSun solver = new SettingSun();
+			long start = System.nanoTime();
+			State plainSolution = solver.solvePuzzle();
+			long middle = System.nanoTime();
+			plainExpanded = solver.iterationCount;
+			State symmetrySolution = solver.solvePuzzleWithSymmetry();
+			long end = System.nanoTime();
+			symmetryExpanded = solver.iterationCount;
+
+			if (chainLength(plainSolution) != chainLength(symmetrySolution)) {
+				throw new RuntimeException("symmetry solution length differs from the plain solver");
+			}
+			checkMoves(symmetrySolution);
+			if (run >= WARM_UP_RUNS) {
+				plainTime += middle - start;
+				symmetryTime += end - middle;
+			}
+		}
+
+		System.out.println("symmetry benchmark (expanded states: plain " + plainExpanded + ", symmetry " + symmetryExpanded + ")");
+		printTime("plain keys", plainTime, plainExpanded);
+		printTime("canonical mirror keys", symmetryTime, symmetryExpanded);
+	}
+}
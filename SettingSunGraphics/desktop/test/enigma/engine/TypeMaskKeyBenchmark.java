@@ -0,0 +1,68 @@
+package enigma.engine;
+
+import static enigma.engine.BenchmarkSupport.WARM_UP_RUNS;
+import static enigma.engine.BenchmarkSupport.TIMED_RUNS;
+import static enigma.engine.BenchmarkSupport.printTime;
+
+import java.util.Arrays;
+
+/**
+ * Successor generation on type mask keys.
+ */
+class TypeMaskKeyBenchmark {
+	/**
+	 * Compares successor generation on data vectors (MoveGenerator) with successor generation on
+	 * type mask keys (TypeMaskKey). Every legal configuration must convert to a key and back, and
+	 * both generators must find the same successors (in any order).
+	 */
+	static void run() {
+		long[] dataVectors = new long[StateIndex.size()];
+		long[] keys = new long[StateIndex.size()];
+		for (int rank = 0; rank < keys.length; ++rank) {
+			dataVectors[rank] = StateIndex.dataVectorOf(rank);
+			keys[rank] = TypeMaskKey.fromDataVector(dataVectors[rank]);
+			if (TypeMaskKey.toDataVector(keys[rank]) != dataVectors[rank] || TypeMaskKey.occupancy(keys[rank]) != Bitboard.occupancy(dataVectors[rank])) {
+				throw new RuntimeException("key conversion differs for state " + Long.toHexString(dataVectors[rank]));
+			}
+		}
+
+		MoveGenerator generator = new MoveGenerator();
+		long[] successors = new long[MoveGenerator.MAX_SUCCESSORS];
+		long[] keySuccessors = new long[TypeMaskKey.MAX_SUCCESSORS];
+		for (int rank = 0; rank < keys.length; ++rank) {
+			int count = generator.generate(dataVectors[rank], successors, null);
+			int keyCount = TypeMaskKey.generate(keys[rank], keySuccessors);
+			for (int i = 0; i < keyCount; ++i) {
+				keySuccessors[i] = TypeMaskKey.toDataVector(keySuccessors[i]);
+			}
+			Arrays.sort(successors, 0, count);
+			Arrays.sort(keySuccessors, 0, keyCount);
+			if (count != keyCount || !Arrays.equals(Arrays.copyOf(successors, count), Arrays.copyOf(keySuccessors, keyCount))) {
+				throw new RuntimeException("successors differ for state " + Long.toHexString(dataVectors[rank]));
+			}
+		}
+
+		long dataVectorTime = 0;
+		long keyTime = 0;
+		for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; ++run) {
+			long start = System.nanoTime();
+			for (long dataVector : dataVectors) {
+				generator.generate(dataVector, successors, null);
+			}
+			long middle = System.nanoTime();
+			for (long key : keys) {
+				TypeMaskKey.generate(key, keySuccessors);
+			}
+			long end = System.nanoTime();
+
+			if (run >= WARM_UP_RUNS) {
+				dataVectorTime += middle - start;
+				keyTime += end - middle;
+			}
+		}
+
+		System.out.println("type mask key benchmark (" + keys.length + " states, identical successors)");
+		printTime("data vector", dataVectorTime, keys.length);
+		printTime("type mask key", keyTime, keys.length);
+	}
+}